@@ -0,0 +1,183 @@
+package com.company.test.utilities.classgenerator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Collects every class generated in one run in a staging directory and only moves them into
+ * place when the whole run commits, so a failed or interrupted run leaves the previous output
+ * untouched. Classes whose content matches the manifest are never staged, and generated files
+ * from earlier runs that this run no longer produces are removed on commit.
+ *
+ * <p>Each class is replaced with its own atomic rename, so every file is either old or new but a
+ * crash in the middle of a commit can leave some classes of the run moved and others not; the
+ * next run regenerates the difference. Nor does the commit save syscalls per file, only the
+ * unchanged classes that are never written and the directories created once per run.
+ */
+public class BatchClassWriter {
+
+    public enum FsyncPolicy {
+        // leave flushing to the operating system, as plain file writes do
+        NEVER,
+        // force every staged file to disk before it is moved into place
+        FILES,
+        // also force the output directories after the moves so the renames are durable
+        FILES_AND_DIRECTORIES
+    }
+
+    private static class StagedClass {
+        final Path staged;
+        final Path target;
+        final String hash;
+
+        StagedClass(Path staged, Path target, String hash) {
+            this.staged = staged;
+            this.target = target;
+            this.hash = hash;
+        }
+    }
+
+    private final GenerationManifest manifest;
+    private final Path stagingDirectory;
+    private final FsyncPolicy fsyncPolicy;
+
+    private final List<StagedClass> staged = new ArrayList<>();
+    // every output path this run produced, whether it was staged or unchanged
+    private final Set<String> produced = ConcurrentHashMap.newKeySet();
+    private final Set<Path> directories = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger stagedCount = new AtomicInteger();
+    private int removedCount;
+
+    public BatchClassWriter(GenerationManifest manifest, Path stagingParent, FsyncPolicy fsyncPolicy)
+            throws IOException {
+        this.manifest = manifest;
+        this.fsyncPolicy = fsyncPolicy;
+        Files.createDirectories(stagingParent);
+        this.stagingDirectory = Files.createTempDirectory(stagingParent, "run");
+    }
+
+    public GenerationManifest getManifest() {
+        return manifest;
+    }
+
+    // stages the class for directory and returns the bytes staged, 0 when its content is
+    // unchanged and nothing was staged; safe to call concurrently
+    public long stage(ClassBuilder classBuilder, String directory) {
+        Path target = Paths.get(directory, classBuilder.getFileName()).toAbsolutePath().normalize();
+        String outputPath = target.toString();
+        if (!produced.add(outputPath)) {
+            throw new IllegalStateException("more than one class generated for " + outputPath);
+        }
+        directories.add(target.getParent());
+
+        // rendered once, the hashed bytes are the ones staged
+        byte[] content = classBuilder.generateFileBytes();
+        String hash = ClassBuilder.contentHash(content);
+        if (manifest.isUnchanged(outputPath, hash, content.length)) {
+            manifest.markSkipped();
+            return 0;
+        }
+
+        Path stagedFile =
+                stagingDirectory.resolve(stagedCount.incrementAndGet() + "-" + classBuilder.getFileName());
+        try (FileChannel channel =
+                FileChannel.open(stagedFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            ClassBuilder.writeFully(channel, content);
+            if (fsyncPolicy != FsyncPolicy.NEVER) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not stage " + outputPath, e);
+        }
+        synchronized (staged) {
+            staged.add(new StagedClass(stagedFile, target, hash));
+        }
+        return content.length;
+    }
+
+    // moves every staged class into place and removes outputs this run no longer produces, one
+    // file at a time
+    public void commit() throws IOException {
+        try {
+            for (Path directory : directories) {
+                Files.createDirectories(directory);
+            }
+            for (StagedClass stagedClass : staged) {
+                move(stagedClass.staged, stagedClass.target);
+                manifest.markWritten(stagedClass.target.toString(), stagedClass.hash);
+            }
+            removeStaleOutputs();
+            if (fsyncPolicy == FsyncPolicy.FILES_AND_DIRECTORIES) {
+                for (Path directory : directories) {
+                    forceDirectory(directory);
+                }
+            }
+        } finally {
+            deleteStagingDirectory();
+        }
+    }
+
+    public void abort() throws IOException {
+        deleteStagingDirectory();
+    }
+
+    public String summary() {
+        return manifest.summary() + ", " + removedCount + " stale file(s) removed";
+    }
+
+    private void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(
+                    source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            // staging and output are on different file systems
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // only looks at directories written to in this run, so generating one service never
+    // removes the output of another
+    private void removeStaleOutputs() throws IOException {
+        for (String path : new ArrayList<>(manifest.getPaths())) {
+            Path previous = Paths.get(path);
+            if (!produced.contains(path) && directories.contains(previous.getParent())) {
+                Files.deleteIfExists(previous);
+                manifest.remove(path);
+                removedCount++;
+            }
+        }
+    }
+
+    private void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // not every platform can open a directory for syncing
+        }
+    }
+
+    private void deleteStagingDirectory() throws IOException {
+        if (!Files.exists(stagingDirectory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(stagingDirectory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
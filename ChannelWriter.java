@@ -0,0 +1,119 @@
+package com.company.test.utilities.classgenerator;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Writer that encodes straight into a caller supplied byte buffer and drains it to a channel
+ * whenever it fills up, so rendered text never has to exist as one String. Closing the writer
+ * flushes it but leaves the channel open for the caller.
+ */
+public class ChannelWriter extends Writer {
+
+    private static final int CHAR_BUFFER_SIZE = 2048;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer bytes;
+    private final CharBuffer chars = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+    private final CharsetEncoder encoder;
+
+    public ChannelWriter(WritableByteChannel channel, ByteBuffer bytes, Charset charset) {
+        this.channel = channel;
+        this.bytes = bytes;
+        this.bytes.clear();
+        this.encoder =
+                charset.newEncoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        if (!chars.hasRemaining()) {
+            encodeChars(false);
+        }
+        chars.put((char) c);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        appendChars(CharBuffer.wrap(cbuf), off, off + len);
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        appendChars(str, off, off + len);
+    }
+
+    @Override
+    public Writer append(CharSequence csq) throws IOException {
+        CharSequence value = csq == null ? "null" : csq;
+        appendChars(value, 0, value.length());
+        return this;
+    }
+
+    @Override
+    public Writer append(CharSequence csq, int start, int end) throws IOException {
+        appendChars(csq == null ? "null" : csq, start, end);
+        return this;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        encodeChars(false);
+        drainBytes();
+    }
+
+    @Override
+    public void close() throws IOException {
+        encodeChars(true);
+        while (encoder.flush(bytes).isOverflow()) {
+            drainBytes();
+        }
+        drainBytes();
+    }
+
+    private void appendChars(CharSequence csq, int start, int end) throws IOException {
+        int index = start;
+        while (index < end) {
+            if (!chars.hasRemaining()) {
+                encodeChars(false);
+            }
+            int count = Math.min(chars.remaining(), end - index);
+            if (csq instanceof String) {
+                chars.put((String) csq, index, index + count);
+            } else {
+                for (int i = index; i < index + count; i++) {
+                    chars.put(csq.charAt(i));
+                }
+            }
+            index += count;
+        }
+    }
+
+    private void encodeChars(boolean endOfInput) throws IOException {
+        chars.flip();
+        CoderResult result = encoder.encode(chars, bytes, endOfInput);
+        while (result.isOverflow()) {
+            drainBytes();
+            result = encoder.encode(chars, bytes, endOfInput);
+        }
+        // a trailing high surrogate stays behind until its pair arrives
+        chars.compact();
+    }
+
+    private void drainBytes() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
+}
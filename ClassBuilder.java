@@ -1,56 +1,131 @@
 package com.company.test.utilities.classgenerator;
 
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 public class ClassBuilder {
 
-    private final String PACKAGE_TEMPLATE = "package %s;\n\n";
-    private final String IMPORT_STATEMENT_TEMPLATE = "import %s%s;\n";
-    private final String CLASS_TEMPLATE = "public class %s {\n\n%s\n}";
-    private final String FIELD_TEMPLATE = "\t%s %s%s%s %s = %s;\n";
-    private final String METHOD_TEMPLATE = "\t%s %s%s %s(%s){\n\t\t%s%s\n\t}\n\n";
-
-    private List<String> imports = new ArrayList<>();
-    private List<String> fields = new ArrayList<>();
-    private List<String> methods = new ArrayList<>();
+    // names of the templates every file is rendered with, see javaTemplates()
+    public static final String PACKAGE_TEMPLATE = "package";
+    public static final String IMPORT_STATEMENT_TEMPLATE = "import";
+    public static final String CLASS_HEADER_TEMPLATE = "class.header";
+    public static final String CLASS_FOOTER_TEMPLATE = "class.footer";
+    public static final String FIELD_TEMPLATE = "field";
+    public static final String FIELD_ANNOTATION_TEMPLATE = "field.annotation";
+    public static final String METHOD_TEMPLATE = "method";
+
+    private static final TemplateRegistry JAVA_TEMPLATES =
+            new TemplateRegistry()
+                    .register(PACKAGE_TEMPLATE, "package %s;\n\n")
+                    .register(IMPORT_STATEMENT_TEMPLATE, "import %s%s;\n")
+                    .register(CLASS_HEADER_TEMPLATE, "public class %s {\n\n")
+                    .register(CLASS_FOOTER_TEMPLATE, "\n}")
+                    .register(FIELD_TEMPLATE, "\t%s %s%s%s %s = %s;\n")
+                    .register(FIELD_ANNOTATION_TEMPLATE, "\t%s\n")
+                    .register(METHOD_TEMPLATE, "\t%s %s%s %s(%s){\n\t\t%s%s\n\t}\n\n");
+
+    private static final int WRITE_BUFFER_SIZE = 16 * 1024;
+
+    // one direct buffer per thread, reused for every class that thread writes
+    private static final ThreadLocal<ByteBuffer> WRITE_BUFFER =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE));
+
+    private Set<String> imports = new HashSet<>();
+    private Set<String> staticImports = new HashSet<>();
+    // keyed by field name and method signature, iteration order is the order members were added
+    private final Map<String, FieldMember> fields = new LinkedHashMap<>();
+    private final Map<String, MethodMember> methods = new LinkedHashMap<>();
+    // members are rendered sorted by field name and method signature instead
+    private boolean canonicalOrder;
 
     private String className;
     private String packagePath;
 
+    private final Template packageTemplate;
+    private final Template importTemplate;
+    private final Template classHeaderTemplate;
+    private final Template classFooterTemplate;
+    private final Template fieldTemplate;
+    private final Template fieldAnnotationTemplate;
+    private final Template methodTemplate;
+
     public ClassBuilder(String packagePath, String className) {
+        this(packagePath, className, JAVA_TEMPLATES);
+    }
+
+    public ClassBuilder(String packagePath, String className, TemplateRegistry templates) {
         setPackagePath(packagePath);
         setClassName(className);
+        packageTemplate = templates.get(PACKAGE_TEMPLATE);
+        importTemplate = templates.get(IMPORT_STATEMENT_TEMPLATE);
+        classHeaderTemplate = templates.get(CLASS_HEADER_TEMPLATE);
+        classFooterTemplate = templates.get(CLASS_FOOTER_TEMPLATE);
+        fieldTemplate = templates.get(FIELD_TEMPLATE);
+        fieldAnnotationTemplate = templates.get(FIELD_ANNOTATION_TEMPLATE);
+        methodTemplate = templates.get(METHOD_TEMPLATE);
     }
 
-    public List<String> getImports() {
+    // a copy of the java templates to register replacements in for other file kinds
+    public static TemplateRegistry javaTemplates() {
+        return JAVA_TEMPLATES.copy();
+    }
+
+    public Set<String> getImports() {
         return imports;
     }
 
-    public void setImports(List<String> imports) {
+    public void setImports(Set<String> imports) {
         this.imports = imports;
     }
 
-    public List<String> getFields() {
-        return fields;
+    // makes the rendered class independent of the order members were added in
+    public void setCanonicalOrder(boolean canonicalOrder) {
+        this.canonicalOrder = canonicalOrder;
+    }
+
+    public Set<String> getStaticImports() {
+        return staticImports;
     }
 
-    public void setFields(List<String> fields) {
-        this.fields = fields;
+    public void setStaticImports(Set<String> staticImports) {
+        this.staticImports = staticImports;
     }
 
-    public List<String> getMethods() {
-        return methods;
+    public Collection<FieldMember> getFields() {
+        return Collections.unmodifiableCollection(fields.values());
     }
 
-    public void setMethods(List<String> methods) {
-        this.methods = methods;
+    public FieldMember getField(String fieldName) {
+        return fields.get(fieldName);
+    }
+
+    public Collection<MethodMember> getMethods() {
+        return Collections.unmodifiableCollection(methods.values());
+    }
+
+    public MethodMember getMethod(String signature) {
+        return methods.get(signature);
     }
 
     public String getClassName() {
@@ -61,6 +136,10 @@ public class ClassBuilder {
         this.className = className;
     }
 
+    public String getFileName() {
+        return className + ".java";
+    }
+
     public String getPackagePath() {
         return packagePath;
     }
@@ -69,20 +148,68 @@ public class ClassBuilder {
         this.packagePath = packagePath;
     }
 
-    public void removeMethod(String method) {
-        methods.remove(method);
+    public void removeMethod(String methodName, String methodArguments) {
+        removeMethod(MethodMember.signature(methodName, methodArguments));
+    }
+
+    // signature as built by MethodMember.signature, e.g. getItem(String,Object)
+    public void removeMethod(String signature) {
+        methods.remove(signature);
     }
 
-    public void removeField(String field) {
-        fields.remove(field);
+    public void removeField(String fieldName) {
+        fields.remove(fieldName);
     }
 
-    public void removeImport(String importStatement) {
-        imports.remove(importStatement);
+    public void removeImport(boolean isStatic, String path) {
+        (isStatic ? staticImports : imports).remove(path);
+    }
+
+    public void removeImportStatement(String importPath) {
+        removeImport(false, importPath);
+    }
+
+    public void removeStaticImportStatement(String importPath) {
+        removeImport(true, importPath);
     }
 
     public void clearImports() {
         imports.clear();
+        staticImports.clear();
+    }
+
+    // drops imports whose simple name no field or method mentions, e.g. java.io.File once the last
+    // method taking a file is gone; wildcard imports are always kept
+    public void removeUnusedImports() {
+        Set<String> identifiers = new HashSet<>();
+        for (FieldMember field : fields.values()) {
+            collectIdentifiers(field.render(fieldAnnotationTemplate, fieldTemplate), identifiers);
+        }
+        for (MethodMember method : methods.values()) {
+            collectIdentifiers(method.render(methodTemplate), identifiers);
+        }
+        imports.removeIf(path -> !isUsedImport(path, identifiers));
+        staticImports.removeIf(path -> !isUsedImport(path, identifiers));
+    }
+
+    private static boolean isUsedImport(String path, Set<String> identifiers) {
+        String simpleName = path.substring(path.lastIndexOf('.') + 1);
+        return simpleName.equals("*") || identifiers.contains(simpleName);
+    }
+
+    private static void collectIdentifiers(String text, Set<String> identifiers) {
+        int i = 0;
+        while (i < text.length()) {
+            if (Character.isJavaIdentifierStart(text.charAt(i))) {
+                int start = i;
+                while (i < text.length() && Character.isJavaIdentifierPart(text.charAt(i))) {
+                    i++;
+                }
+                identifiers.add(text.substring(start, i));
+            } else {
+                i++;
+            }
+        }
     }
 
     public void clearMethods() {
@@ -102,24 +229,160 @@ public class ClassBuilder {
     }
 
     public void generateClassAt(String path) {
-        String fullPath = path + "/" + className + ".java";
+        String fullPath = path + "/" + getFileName();
+        generateBaseDirectory(path);
+        try (FileChannel channel =
+                FileChannel.open(
+                        Paths.get(fullPath),
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.WRITE)) {
+            renderFileTo(channel);
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not write " + fullPath, e);
+        }
+    }
+
+    // writes the class only when its content differs from what the manifest recorded last run, the
+    // class is rendered once and the hashed bytes are the ones written
+    public boolean generateClassAt(String path, GenerationManifest manifest) {
+        String fullPath = path + "/" + getFileName();
+        byte[] content = generateFileBytes();
+        String hash = contentHash(content);
+        if (manifest.isUnchanged(fullPath, hash, content.length)) {
+            manifest.markSkipped();
+            return false;
+        }
         generateBaseDirectory(path);
-        generateBaseFile(fullPath);
-        writeUsingBufferedWriter(fullPath, generateFileContent());
+        try (FileChannel channel =
+                FileChannel.open(
+                        Paths.get(fullPath),
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.WRITE)) {
+            writeFully(channel, content);
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not write " + fullPath, e);
+        }
+        manifest.markWritten(fullPath, hash);
+        return true;
+    }
+
+    // same bytes generateClassAt puts on disk
+    public byte[] generateFileBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(WRITE_BUFFER_SIZE);
+        try {
+            renderFileTo(Channels.newChannel(out));
+        } catch (IOException e) {
+            // ByteArrayOutputStream never throws
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    // the SHA-256 of rendered file content as hex, as kept in the generation manifest
+    public static String contentHash(byte[] content) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        StringBuilder result = new StringBuilder();
+        for (byte b : digest.digest(content)) {
+            result.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return result.toString();
+    }
+
+    static void writeFully(WritableByteChannel channel, byte[] content) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(content);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
     }
 
     public String generateFileContent() {
         StringBuilder result = new StringBuilder();
-        result.append(String.format(PACKAGE_TEMPLATE, packagePath));
-        result.append(generateStringFromList(imports));
-        result.append(
-                String.format(
-                        CLASS_TEMPLATE,
-                        className,
-                        generateStringFromList(fields) + generateStringFromList(methods)));
+        try {
+            renderTo(result);
+        } catch (IOException e) {
+            // StringBuilder never throws
+            throw new UncheckedIOException(e);
+        }
         return result.toString();
     }
 
+    public void renderTo(Appendable out) throws IOException {
+        packageTemplate.appendTo(out, packagePath);
+        appendImportBlock(out);
+        classHeaderTemplate.appendTo(out, className);
+        for (FieldMember field : orderedMembers(fields)) {
+            out.append(field.render(fieldAnnotationTemplate, fieldTemplate));
+        }
+        out.append("\n");
+        for (MethodMember method : orderedMembers(methods)) {
+            out.append(method.render(methodTemplate));
+        }
+        out.append("\n");
+        classFooterTemplate.appendTo(out);
+    }
+
+    // the field name or method signature every line of generateFileContent() belongs to, null for
+    // lines outside of any member, so a problem reported by line can be traced back to its member
+    public String[] generateMemberLineIndex() {
+        StringBuilder header = new StringBuilder();
+        try {
+            packageTemplate.appendTo(header, packagePath);
+            appendImportBlock(header);
+            classHeaderTemplate.appendTo(header, className);
+        } catch (IOException e) {
+            // StringBuilder never throws
+            throw new UncheckedIOException(e);
+        }
+        List<String> lines = new ArrayList<>();
+        addLines(lines, header, null);
+        for (FieldMember field : orderedMembers(fields)) {
+            addLines(lines, field.render(fieldAnnotationTemplate, fieldTemplate), field.name);
+        }
+        addLines(lines, "\n", null);
+        for (MethodMember method : orderedMembers(methods)) {
+            addLines(lines, method.render(methodTemplate), method.signature);
+        }
+        return lines.toArray(new String[0]);
+    }
+
+    private <M> Collection<M> orderedMembers(Map<String, M> members) {
+        return canonicalOrder ? new TreeMap<>(members).values() : members.values();
+    }
+
+    private static void addLines(List<String> lines, CharSequence text, String member) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                lines.add(member);
+            }
+        }
+    }
+
+    public void renderTo(WritableByteChannel channel) throws IOException {
+        try (ChannelWriter writer = newChannelWriter(channel)) {
+            renderTo(writer);
+        }
+    }
+
+    // same bytes generateClassAt puts on disk: the class followed by a line separator
+    public void renderFileTo(WritableByteChannel channel) throws IOException {
+        try (ChannelWriter writer = newChannelWriter(channel)) {
+            renderTo(writer);
+            writer.append(System.lineSeparator());
+        }
+    }
+
+    private ChannelWriter newChannelWriter(WritableByteChannel channel) {
+        return new ChannelWriter(channel, WRITE_BUFFER.get(), StandardCharsets.UTF_8);
+    }
+
+    // replaces a method with the same signature, keeping its position in the class
     public void addMethod(
             String accessLevel,
             boolean isStatic,
@@ -128,18 +391,19 @@ public class ClassBuilder {
             String methodArguments,
             String beforeReturnStatement,
             String methodDefinition) {
-        methods.add(
-                String.format(
-                        METHOD_TEMPLATE,
+        MethodMember method =
+                new MethodMember(
                         accessLevel,
-                        isStatic ? "static " : "",
+                        isStatic,
                         returnType,
                         methodName,
                         methodArguments,
                         beforeReturnStatement,
-                        methodDefinition));
+                        methodDefinition);
+        methods.put(method.signature, method);
     }
 
+    // replaces a field with the same name, keeping its position in the class
     public void addField(
             String accessLevel,
             boolean isStatic,
@@ -147,22 +411,25 @@ public class ClassBuilder {
             String dataType,
             String fieldName,
             String dataValue) {
-        fields.add(
-                String.format(
-                        FIELD_TEMPLATE,
-                        accessLevel,
-                        isStatic ? "static " : "",
-                        isFinal ? "final " : "",
-                        dataType,
-                        fieldName,
-                        dataValue));
+        addField(List.of(), accessLevel, isStatic, isFinal, dataType, fieldName, dataValue);
+    }
+
+    // annotations are given without their indentation, e.g. @JsonProperty("first-name")
+    public void addField(
+            List<String> annotations,
+            String accessLevel,
+            boolean isStatic,
+            boolean isFinal,
+            String dataType,
+            String fieldName,
+            String dataValue) {
+        fields.put(
+                fieldName,
+                new FieldMember(annotations, accessLevel, isStatic, isFinal, dataType, fieldName, dataValue));
     }
 
     public void addImport(boolean isStatic, String path) {
-        String currentImports = generateStringFromList(imports);
-        if (!currentImports.contains(path)) {
-            imports.add(String.format(IMPORT_STATEMENT_TEMPLATE, isStatic ? "static " : "", path));
-        }
+        (isStatic ? staticImports : imports).add(path);
     }
 
     public void addPublicStaticMethod(
@@ -214,43 +481,29 @@ public class ClassBuilder {
     }
 
     public void generateBaseDirectory(String basePath) {
-        File file = new File(basePath); // initialize File object and passing new path as argument
         try {
-            file.mkdir();
-        } catch (Exception e) {
-            e.printStackTrace(); // prints exception if any
+            Files.createDirectories(Paths.get(basePath));
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not create directory " + basePath, e);
         }
     }
 
-    public void generateBaseFile(String basePath) {
-        File file = new File(basePath); // initialize File object and passing path as argument
-        try {
-            file.createNewFile(); // makes a new file
-        } catch (Exception e) {
-            e.printStackTrace(); // prints exception if any
+    // static imports first, then regular imports, each group sorted and separated by a blank line
+    public void appendImportBlock(Appendable out) throws IOException {
+        appendImportGroup(out, staticImports, true);
+        if (!staticImports.isEmpty() && !imports.isEmpty()) {
+            out.append("\n");
         }
+        appendImportGroup(out, imports, false);
+        out.append("\n");
     }
 
-    public void writeUsingBufferedWriter(String path, String fileContent) {
-
-        File file = new File(path);
-        FileWriter fr = null;
-        BufferedWriter br = null;
-        String dataWithNewLine = fileContent + System.getProperty("line.separator");
-        try {
-            fr = new FileWriter(file);
-            br = new BufferedWriter(fr);
-            br.write(dataWithNewLine);
-
-        } catch (IOException e) {
-            e.printStackTrace();
-        } finally {
-            try {
-                br.close();
-                fr.close();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+    private void appendImportGroup(Appendable out, Set<String> group, boolean isStatic)
+            throws IOException {
+        List<String> sorted = new ArrayList<>(group);
+        Collections.sort(sorted);
+        for (String path : sorted) {
+            importTemplate.appendTo(out, isStatic ? "static " : "", path);
         }
     }
 
@@ -270,6 +523,23 @@ public class ClassBuilder {
         return result.toString();
     }
 
+    // the contents of a java string literal reading as value, without the surrounding quotes
+    public static String escapeStringLiteral(String value) {
+        StringBuilder result = new StringBuilder(value.length() + 8);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                result.append('\\').append(c);
+            } else if (c < 0x20 || c == 0x7f) {
+                // octal rather than unicode escapes, which javac would turn back into the character
+                result.append(String.format("\\%03o", (int) c));
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
     public static String capitalizeString(String str) {
         if (str.isEmpty()) {
             return str;
@@ -281,4 +551,163 @@ public class ClassBuilder {
             throw new IllegalArgumentException("could not capitalize string " + str);
         }
     }
+
+    public static class FieldMember {
+        public final List<String> annotations;
+        public final String accessLevel;
+        public final boolean isStatic;
+        public final boolean isFinal;
+        public final String dataType;
+        public final String name;
+        public final String value;
+
+        // members never change, so their text only has to be rendered once per template
+        private Template renderedWith;
+        private Template annotationsRenderedWith;
+        private String rendered;
+
+        public FieldMember(
+                String accessLevel,
+                boolean isStatic,
+                boolean isFinal,
+                String dataType,
+                String name,
+                String value) {
+            this(List.of(), accessLevel, isStatic, isFinal, dataType, name, value);
+        }
+
+        public FieldMember(
+                List<String> annotations,
+                String accessLevel,
+                boolean isStatic,
+                boolean isFinal,
+                String dataType,
+                String name,
+                String value) {
+            this.annotations = List.copyOf(annotations);
+            this.accessLevel = accessLevel;
+            this.isStatic = isStatic;
+            this.isFinal = isFinal;
+            this.dataType = dataType;
+            this.name = name;
+            this.value = value;
+        }
+
+        public String render(Template annotationTemplate, Template template) {
+            if (renderedWith != template || annotationsRenderedWith != annotationTemplate) {
+                StringBuilder result = new StringBuilder();
+                annotations.forEach(annotation -> annotationTemplate.appendTo(result, annotation));
+                template.appendTo(
+                        result,
+                        accessLevel,
+                        isStatic ? "static " : "",
+                        isFinal ? "final " : "",
+                        dataType,
+                        name,
+                        value);
+                rendered = result.toString();
+                renderedWith = template;
+                annotationsRenderedWith = annotationTemplate;
+            }
+            return rendered;
+        }
+    }
+
+    public static class MethodMember {
+        public final String accessLevel;
+        public final boolean isStatic;
+        public final String returnType;
+        public final String name;
+        public final String arguments;
+        public final String beforeReturnStatement;
+        public final String definition;
+        public final String signature;
+
+        private Template renderedWith;
+        private String rendered;
+
+        public MethodMember(
+                String accessLevel,
+                boolean isStatic,
+                String returnType,
+                String name,
+                String arguments,
+                String beforeReturnStatement,
+                String definition) {
+            this.accessLevel = accessLevel;
+            this.isStatic = isStatic;
+            this.returnType = returnType;
+            this.name = name;
+            this.arguments = arguments;
+            this.beforeReturnStatement = beforeReturnStatement;
+            this.definition = definition;
+            this.signature = signature(name, arguments);
+        }
+
+        // getItem + "String id, Map<String, Object> body" -> getItem(String,Map<String,Object>)
+        public static String signature(String name, String arguments) {
+            StringBuilder result = new StringBuilder(name).append('(');
+            StringBuilder parameter = new StringBuilder();
+            int depth = 0;
+            boolean first = true;
+            for (int i = 0; i <= arguments.length(); i++) {
+                char c = i < arguments.length() ? arguments.charAt(i) : ',';
+                if (c == ',' && depth == 0) {
+                    String type = parameterType(parameter.toString().trim());
+                    if (!type.isEmpty()) {
+                        result.append(first ? "" : ",").append(type);
+                        first = false;
+                    }
+                    parameter.setLength(0);
+                    continue;
+                }
+                if (c == '<') {
+                    depth++;
+                } else if (c == '>') {
+                    depth--;
+                }
+                parameter.append(c);
+            }
+            return result.append(')').toString();
+        }
+
+        // drops the parameter name, a final modifier and any whitespace from a declaration
+        private static String parameterType(String parameter) {
+            int nameStart = parameter.length();
+            while (nameStart > 0 && Character.isJavaIdentifierPart(parameter.charAt(nameStart - 1))) {
+                nameStart--;
+            }
+            String type = parameter.substring(0, nameStart).trim();
+            if (type.isEmpty()) {
+                // a bare type without a name
+                type = parameter;
+            }
+            if (type.startsWith("final ")) {
+                type = type.substring("final ".length());
+            }
+            StringBuilder result = new StringBuilder(type.length());
+            for (int i = 0; i < type.length(); i++) {
+                if (!Character.isWhitespace(type.charAt(i))) {
+                    result.append(type.charAt(i));
+                }
+            }
+            return result.toString();
+        }
+
+        public String render(Template template) {
+            if (renderedWith != template) {
+                rendered =
+                        template.render(
+                                accessLevel,
+                                isStatic ? "static " : "",
+                                returnType,
+                                name,
+                                arguments,
+                                beforeReturnStatement,
+                                definition);
+                renderedWith = template;
+            }
+            return rendered;
+        }
+    }
 }
@@ -0,0 +1,261 @@
+package com.company.test.utilities.classgenerator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+/**
+ * Compiles every class generated in a run in a single in-memory javac invocation, against stubs
+ * of the Serenity, RestAssured and Jackson types the generated classes use rather than the real
+ * libraries, so broken generated code is caught before it is written instead of in the
+ * downstream build. Errors are traced back to the member that caused them and from there to its
+ * swagger operation or definition.
+ */
+public class GeneratedSourceVerifier {
+
+    // only the parts of the real APIs the generated wrappers call
+    private static final String[][] STUBS = {
+        {
+            "net.serenitybdd.screenplay.Performable",
+            "package net.serenitybdd.screenplay;\npublic interface Performable {}\n"
+        },
+        {
+            "net.serenitybdd.screenplay.Actor",
+            "package net.serenitybdd.screenplay;\npublic class Actor {}\n"
+        },
+        {
+            "net.serenitybdd.screenplay.Task",
+            "package net.serenitybdd.screenplay;\n"
+                    + "public interface Task extends Performable {\n"
+                    + "    static Task where(String title, java.util.function.Consumer<Actor> steps) {\n"
+                    + "        return null;\n"
+                    + "    }\n"
+                    + "}\n"
+        },
+        {
+            "com.company.test.abilities.CallProductApi",
+            "package com.company.test.abilities;\n"
+                    + "public class CallProductApi {\n"
+                    + "    public static CallProductApi as(net.serenitybdd.screenplay.Actor actor) {\n"
+                    + "        return null;\n"
+                    + "    }\n"
+                    + "    public String toEndpoint(String endpoint) {\n"
+                    + "        return null;\n"
+                    + "    }\n"
+                    + "}\n"
+        },
+        {
+            "io.restassured.response.Response",
+            "package io.restassured.response;\npublic interface Response {}\n"
+        },
+        {
+            "io.restassured.specification.RequestSpecification",
+            "package io.restassured.specification;\n"
+                    + "import io.restassured.response.Response;\n"
+                    + "public interface RequestSpecification {\n"
+                    + "    RequestSpecification with();\n"
+                    + "    RequestSpecification spec(RequestSpecification specification);\n"
+                    + "    RequestSpecification contentType(String contentType);\n"
+                    + "    RequestSpecification body(Object body);\n"
+                    + "    RequestSpecification pathParam(String name, Object value);\n"
+                    + "    RequestSpecification queryParam(String name, Object... values);\n"
+                    + "    RequestSpecification multiPart(String name, java.io.File file, String mimeType);\n"
+                    + "    RequestSpecification multiPart(String name, String content);\n"
+                    + "    Response get(String path, Object... pathParams);\n"
+                    + "    Response put(String path, Object... pathParams);\n"
+                    + "    Response post(String path, Object... pathParams);\n"
+                    + "    Response patch(String path, Object... pathParams);\n"
+                    + "    Response delete(String path, Object... pathParams);\n"
+                    + "    Response head(String path, Object... pathParams);\n"
+                    + "    Response options(String path, Object... pathParams);\n"
+                    + "}\n"
+        },
+        {
+            "io.restassured.builder.RequestSpecBuilder",
+            "package io.restassured.builder;\n"
+                    + "import io.restassured.specification.RequestSpecification;\n"
+                    + "public class RequestSpecBuilder {\n"
+                    + "    public RequestSpecBuilder setContentType(String contentType) {\n"
+                    + "        return this;\n"
+                    + "    }\n"
+                    + "    public RequestSpecification build() {\n"
+                    + "        return null;\n"
+                    + "    }\n"
+                    + "}\n"
+        },
+        {
+            "com.fasterxml.jackson.annotation.JsonProperty",
+            "package com.fasterxml.jackson.annotation;\n"
+                    + "public @interface JsonProperty {\n"
+                    + "    String value() default \"\";\n"
+                    + "}\n"
+        },
+        {
+            "net.serenitybdd.rest.SerenityRest",
+            "package net.serenitybdd.rest;\n"
+                    + "public class SerenityRest {\n"
+                    + "    public static io.restassured.specification.RequestSpecification rest() {\n"
+                    + "        return null;\n"
+                    + "    }\n"
+                    + "}\n"
+        }
+    };
+
+    public static class Problem {
+        public final String fileName;
+        public final long line;
+        // the swagger operation whose member the problem is in, null outside of any member
+        public final String operation;
+        public final String message;
+
+        Problem(String fileName, long line, String operation, String message) {
+            this.fileName = fileName;
+            this.line = line;
+            this.operation = operation;
+            this.message = message;
+        }
+
+        @Override
+        public String toString() {
+            String location = fileName + ":" + line;
+            return (operation != null ? location + " (" + operation + ")" : location) + ": " + message;
+        }
+    }
+
+    private static class Source extends SimpleJavaFileObject {
+        final String fileName;
+        final String content;
+        final String[] memberLines;
+        final Map<String, String> memberOrigins;
+
+        Source(
+                String className,
+                String content,
+                String[] memberLines,
+                Map<String, String> memberOrigins) {
+            super(
+                    URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension),
+                    Kind.SOURCE);
+            this.fileName = className.substring(className.lastIndexOf('.') + 1) + Kind.SOURCE.extension;
+            this.content = content;
+            this.memberLines = memberLines;
+            this.memberOrigins = memberOrigins;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return content;
+        }
+
+        String operationAt(long line) {
+            if (memberLines == null || line < 1 || line > memberLines.length) {
+                return null;
+            }
+            String member = memberLines[(int) line - 1];
+            return member == null ? null : memberOrigins.getOrDefault(member, member);
+        }
+    }
+
+    // nothing compiled here is ever loaded, so class files go nowhere
+    private static class DiscardingFileManager
+            extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+        DiscardingFileManager(StandardJavaFileManager fileManager) {
+            super(fileManager);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(
+                Location location, String className, JavaFileObject.Kind kind, FileObject sibling) {
+            URI uri = URI.create("discard:///" + className.replace('.', '/') + kind.extension);
+            return new SimpleJavaFileObject(uri, kind) {
+                @Override
+                public OutputStream openOutputStream() {
+                    return OutputStream.nullOutputStream();
+                }
+            };
+        }
+    }
+
+    private final List<Source> sources = new ArrayList<>();
+    private long elapsedMillis;
+
+    // memberOrigins maps field names and method signatures to the operation they were generated for
+    public void add(ClassBuilder classBuilder, Map<String, String> memberOrigins) {
+        Source source =
+                new Source(
+                        classBuilder.getPackagePath() + "." + classBuilder.getClassName(),
+                        classBuilder.generateFileContent(),
+                        classBuilder.generateMemberLineIndex(),
+                        memberOrigins);
+        synchronized (sources) {
+            sources.add(source);
+        }
+    }
+
+    // compiles everything added so far and returns the errors, empty when it all compiles
+    public List<Problem> verify() throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("verifying generated classes needs a JDK, not a JRE");
+        }
+        long start = System.nanoTime();
+        List<JavaFileObject> compilationUnits = new ArrayList<>();
+        for (String[] stub : STUBS) {
+            compilationUnits.add(new Source(stub[0], stub[1], null, Map.of()));
+        }
+        synchronized (sources) {
+            compilationUnits.addAll(sources);
+        }
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager standardFileManager =
+                        compiler.getStandardFileManager(diagnostics, Locale.ROOT, null);
+                JavaFileManager fileManager = new DiscardingFileManager(standardFileManager)) {
+            // only the stubs and the JDK, never whatever happens to be on the generator's classpath
+            standardFileManager.setLocation(StandardLocation.CLASS_PATH, List.of());
+            compiler.getTask(
+                            null, fileManager, diagnostics, List.of("-proc:none"), null, compilationUnits)
+                    .call();
+        }
+        elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        List<Problem> problems = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() != Diagnostic.Kind.ERROR) {
+                continue;
+            }
+            Source source =
+                    diagnostic.getSource() instanceof Source ? (Source) diagnostic.getSource() : null;
+            problems.add(
+                    new Problem(
+                            source != null ? source.fileName : String.valueOf(diagnostic.getSource()),
+                            diagnostic.getLineNumber(),
+                            source != null ? source.operationAt(diagnostic.getLineNumber()) : null,
+                            diagnostic.getMessage(Locale.ROOT)));
+        }
+        return problems;
+    }
+
+    public String summary() {
+        synchronized (sources) {
+            return String.format("%d class(es) compiled in %d ms", sources.size(), elapsedMillis);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.company.test.utilities.classgenerator;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Content hashes of every file generated by previous runs, keyed by output path. Stored in the
+ * same "hash  path" line format sha256sum uses so it can be checked by hand.
+ */
+public class GenerationManifest {
+
+    private final Path location;
+    private final Map<String, String> hashes = new ConcurrentHashMap<>();
+    private final AtomicInteger writtenCount = new AtomicInteger();
+    private final AtomicInteger skippedCount = new AtomicInteger();
+
+    public GenerationManifest(Path location) {
+        this.location = location;
+    }
+
+    public static GenerationManifest load(Path location) throws IOException {
+        GenerationManifest manifest = new GenerationManifest(location);
+        if (Files.exists(location)) {
+            try (BufferedReader reader = Files.newBufferedReader(location, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int separator = line.indexOf("  ");
+                    if (separator > 0) {
+                        manifest.hashes.put(line.substring(separator + 2), line.substring(0, separator));
+                    }
+                }
+            }
+        }
+        return manifest;
+    }
+
+    public Path getLocation() {
+        return location;
+    }
+
+    // the recorded hash only vouches for a file that still has the size written back then, so one
+    // deleted, truncated or rewritten since is generated again
+    public boolean isUnchanged(String outputPath, String hash, long size) {
+        if (!hash.equals(hashes.get(outputPath))) {
+            return false;
+        }
+        try {
+            return Files.size(Path.of(outputPath)) == size;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public void markWritten(String outputPath, String hash) {
+        hashes.put(outputPath, hash);
+        writtenCount.incrementAndGet();
+    }
+
+    public Set<String> getPaths() {
+        return Collections.unmodifiableSet(hashes.keySet());
+    }
+
+    public void remove(String outputPath) {
+        hashes.remove(outputPath);
+    }
+
+    public void markSkipped() {
+        skippedCount.incrementAndGet();
+    }
+
+    public int getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    public int getSkippedCount() {
+        return skippedCount.get();
+    }
+
+    public String summary() {
+        return String.format(
+                "%d file(s) written, %d file(s) unchanged and skipped",
+                getWrittenCount(), getSkippedCount());
+    }
+
+    public void save() throws IOException {
+        List<String> paths = new ArrayList<>(hashes.keySet());
+        Collections.sort(paths);
+
+        Path directory = location.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, location.getFileName().toString(), ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (String path : paths) {
+                writer.write(hashes.get(path));
+                writer.write("  ");
+                writer.write(path);
+                writer.newLine();
+            }
+        }
+        Files.move(temp, location, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,184 @@
+package com.company.test.utilities.classgenerator;
+
+import groovyjarjarcommonscli.MissingArgumentException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Command line options for the generators. Anything starting with "--" is a flag, everything
+ * else is a service name, and "all" expands to every known service. Local spec files given with
+ * --spec are generated alongside, or instead of, the services.
+ */
+public class GeneratorOptions {
+
+    private final List<String> services = new ArrayList<>();
+    private final List<String> specFiles = new ArrayList<>();
+    private boolean incremental = true;
+    private boolean sequential = false;
+    private int concurrency = Runtime.getRuntime().availableProcessors();
+    private boolean offline = false;
+    private String swaggerUrl;
+    private Duration httpTimeout = SpecClient.DEFAULT_TIMEOUT;
+    private int retries = SpecClient.DEFAULT_RETRIES;
+    private BatchClassWriter.FsyncPolicy fsyncPolicy = BatchClassWriter.FsyncPolicy.NEVER;
+    private boolean watch = false;
+    private Duration pollInterval = Duration.ofSeconds(5);
+    private boolean shardByController = false;
+    private int operationsPerShard = 0;
+    private boolean facade = false;
+    private boolean verify = false;
+    private String reportPath;
+    private ServiceWrapperGenerator.Flavour flavour = ServiceWrapperGenerator.Flavour.STANDARD;
+    private boolean canonical = false;
+
+    public static GeneratorOptions parse(String[] args, String[] allServices)
+            throws MissingArgumentException {
+        GeneratorOptions options = new GeneratorOptions();
+        for (String arg : args) {
+            if (arg.equals("--full")) {
+                options.incremental = false;
+            } else if (arg.equals("--sequential")) {
+                options.sequential = true;
+            } else if (arg.startsWith("--concurrency=")) {
+                options.concurrency = Integer.parseInt(arg.substring("--concurrency=".length()));
+            } else if (arg.equals("--offline")) {
+                options.offline = true;
+            } else if (arg.startsWith("--swagger-url=")) {
+                options.swaggerUrl = arg.substring("--swagger-url=".length());
+            } else if (arg.startsWith("--http-timeout=")) {
+                options.httpTimeout =
+                        Duration.ofSeconds(Long.parseLong(arg.substring("--http-timeout=".length())));
+            } else if (arg.startsWith("--retries=")) {
+                options.retries = Integer.parseInt(arg.substring("--retries=".length()));
+            } else if (arg.startsWith("--fsync=")) {
+                options.fsyncPolicy =
+                        BatchClassWriter.FsyncPolicy.valueOf(
+                                arg.substring("--fsync=".length()).toUpperCase().replace('-', '_'));
+            } else if (arg.startsWith("--spec=")) {
+                String specFile = arg.substring("--spec=".length());
+                if (!options.specFiles.contains(specFile)) {
+                    options.specFiles.add(specFile);
+                }
+            } else if (arg.equals("--watch")) {
+                options.watch = true;
+            } else if (arg.startsWith("--poll-interval=")) {
+                options.pollInterval =
+                        Duration.ofSeconds(Long.parseLong(arg.substring("--poll-interval=".length())));
+            } else if (arg.equals("--shard=controller")) {
+                options.shardByController = true;
+            } else if (arg.startsWith("--shard=")) {
+                options.operationsPerShard = Integer.parseInt(arg.substring("--shard=".length()));
+            } else if (arg.equals("--facade")) {
+                options.facade = true;
+            } else if (arg.equals("--verify")) {
+                options.verify = true;
+            } else if (arg.startsWith("--flavour=")) {
+                options.flavour =
+                        ServiceWrapperGenerator.Flavour.valueOf(
+                                arg.substring("--flavour=".length()).toUpperCase().replace('-', '_'));
+            } else if (arg.equals("--canonical")) {
+                options.canonical = true;
+            } else if (arg.startsWith("--report=")) {
+                options.reportPath = arg.substring("--report=".length());
+            } else if (arg.startsWith("--")) {
+                throw new IllegalArgumentException("unknown option " + arg);
+            } else if (arg.equalsIgnoreCase("all")) {
+                Arrays.stream(allServices).forEach(options::addService);
+            } else {
+                options.addService(arg);
+            }
+        }
+        if (options.facade && !options.shardByController && options.operationsPerShard == 0) {
+            throw new IllegalArgumentException("--facade only applies together with --shard");
+        }
+        if (options.services.isEmpty() && options.specFiles.isEmpty()) {
+            throw new MissingArgumentException("must provide service arguments when running this tasks");
+        }
+        return options;
+    }
+
+    private void addService(String service) {
+        if (!services.contains(service)) {
+            services.add(service);
+        }
+    }
+
+    public List<String> getServices() {
+        return services;
+    }
+
+    // when false every file is rewritten even if the manifest says it is unchanged
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    public boolean isSequential() {
+        return sequential;
+    }
+
+    // how many services are fetched and generated at once, 1 when running sequentially
+    public int getConcurrency() {
+        return sequential ? 1 : concurrency;
+    }
+
+    // generate purely from the local spec cache without any network requests
+    public boolean isOffline() {
+        return offline;
+    }
+
+    // overrides the generator's swagger url template, e.g. to point it at a local stub server
+    public String getSwaggerUrl(String defaultUrl) {
+        return swaggerUrl != null ? swaggerUrl : defaultUrl;
+    }
+
+    // the client specs are fetched with, shared by every service of the run
+    public SpecClient newSpecClient() {
+        return new SpecClient(httpTimeout, retries);
+    }
+
+    public BatchClassWriter.FsyncPolicy getFsyncPolicy() {
+        return fsyncPolicy;
+    }
+
+    // local swagger files to generate from instead of fetching a service's spec
+    public List<String> getSpecFiles() {
+        return specFiles;
+    }
+
+    // keep running and regenerate whenever a spec changes
+    public boolean isWatch() {
+        return watch;
+    }
+
+    // how often remote specs are revalidated in watch mode
+    public Duration getPollInterval() {
+        return pollInterval;
+    }
+
+    // one class per controller tag or per N operations, with an optional delegating facade
+    public ServiceWrapperGenerator.Sharding getSharding() {
+        return new ServiceWrapperGenerator.Sharding(shardByController, operationsPerShard, facade);
+    }
+
+    // compile the generated classes in memory before writing them
+    public boolean isVerify() {
+        return verify;
+    }
+
+    // where the JSON run report is written
+    public String getReportPath(String defaultPath) {
+        return reportPath != null ? reportPath : defaultPath;
+    }
+
+    // the shape of the generated wrapper methods, standard unless asked otherwise
+    public ServiceWrapperGenerator.Flavour getFlavour() {
+        return flavour;
+    }
+
+    // paths, verbs and members in a fixed order, so reordering the spec does not change the output
+    public boolean isCanonical() {
+        return canonical;
+    }
+}
@@ -0,0 +1,416 @@
+package com.company.test.utilities.classgenerator;
+
+import com.company.test.utilities.classgenerator.RunMetrics.Counter;
+import com.company.test.utilities.classgenerator.RunMetrics.Phase;
+import com.company.test.utilities.classgenerator.RunMetrics.PhaseTimer;
+import com.company.test.utilities.classgenerator.RunMetrics.ServiceMetrics;
+import com.company.test.utilities.classgenerator.ServiceGenerationRunner.ServiceResult;
+import com.company.test.utilities.classgenerator.SwaggerSpecParser.ModelSpec;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import groovyjarjarcommonscli.MissingArgumentException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import javax.lang.model.SourceVersion;
+
+/**
+ * Generates one POJO per swagger definition, with a private field, a getter and a setter per
+ * property. Class names are settled up front in spec order, after which every class is built
+ * and then written on a fork-join pool; each class only depends on its own definition and the
+ * names, so the output is the same however the work is scheduled.
+ */
+public class ModelGenerator {
+
+    private static final ServiceWrapperNaming NAMING = new ServiceWrapperNaming();
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String MANIFEST_PATH = "./build/classgenerator/models.manifest";
+    private static final String SPEC_CACHE_PATH = "./build/classgenerator/specs";
+    private static final String STAGING_PATH = "./build/classgenerator/staging";
+    private static final String REPORT_PATH = "./build/classgenerator/models-report.json";
+
+    private static final String DEFAULT_BASE_PATH = "./src/main/java/com/company/test/models/%s";
+    private static final Template BASE_PACKAGE_PATH = Template.compile("com.company.test.models.%s");
+
+    // fields are declared without an initial value, so the value slot is always empty
+    private static final TemplateRegistry MODEL_TEMPLATES =
+            ClassBuilder.javaTemplates().register(ClassBuilder.FIELD_TEMPLATE, "\t%s %s%s%s %s%s;\n");
+
+    private static final Template JSON_PROPERTY_TEMPLATE = Template.compile("@JsonProperty(\"%s\")");
+    private static final Template GETTER_NAME_TEMPLATE = Template.compile("get%s");
+    private static final Template SETTER_NAME_TEMPLATE = Template.compile("set%s");
+    private static final Template GETTER_DEFINITION_TEMPLATE = Template.compile("return %s;");
+    private static final Template SETTER_DEFINITION_TEMPLATE = Template.compile("this.%s = %s;");
+    private static final Template ARGUMENT_TEMPLATE = Template.compile("%s %s");
+    private static final Template LIST_TEMPLATE = Template.compile("List<%s>");
+    private static final Template MAP_TEMPLATE = Template.compile("Map<String, %s>");
+
+    private static final String JSON_PROPERTY_IMPORT = "com.fasterxml.jackson.annotation.JsonProperty";
+    private static final String LIST_IMPORT = "java.util.List";
+    private static final String MAP_IMPORT = "java.util.Map";
+    // types the fields refer to by their simple name, which a model class of the same name would
+    // clash with or shadow throughout the package
+    private static final Set<String> RESERVED_CLASS_NAMES =
+            Set.of(
+                    "List", "Map", "JsonProperty", "LocalDate", "OffsetDateTime", "BigDecimal", "File",
+                    "Object", "String", "Integer", "Long", "Float", "Double", "Boolean");
+    private static final String RESERVED_CLASS_NAME_SUFFIX = "Model";
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Schema {
+        public String type;
+        public String format;
+
+        @JsonProperty("$ref")
+        public String ref;
+
+        public Schema items;
+        // either a schema or a boolean
+        public JsonNode additionalProperties;
+        public Map<String, Schema> properties;
+        public List<Schema> allOf;
+    }
+
+    private final BatchClassWriter writer;
+    private final Template basePath;
+    private final ForkJoinPool pool;
+    private final GeneratedSourceVerifier verifier;
+    private final ServiceMetrics metrics;
+
+    public ModelGenerator() {
+        this(null, DEFAULT_BASE_PATH);
+    }
+
+    public ModelGenerator(BatchClassWriter writer, String basePath) {
+        this(writer, basePath, ForkJoinPool.commonPool(), null, new ServiceMetrics("models"));
+    }
+
+    public ModelGenerator(
+            BatchClassWriter writer,
+            String basePath,
+            ForkJoinPool pool,
+            GeneratedSourceVerifier verifier,
+            ServiceMetrics metrics) {
+        this.writer = writer;
+        this.basePath = Template.compile(basePath);
+        this.pool = pool;
+        this.verifier = verifier;
+        this.metrics = metrics;
+    }
+
+    public static void main(String[] args)
+            throws MissingArgumentException, IOException, InterruptedException {
+        GeneratorOptions options = GeneratorOptions.parse(args, ServiceWrapperGenerator.SERVICES);
+        GenerationManifest manifest =
+                options.isIncremental()
+                        ? GenerationManifest.load(Paths.get(MANIFEST_PATH))
+                        : new GenerationManifest(Paths.get(MANIFEST_PATH));
+        SwaggerSpecCache specCache =
+                new SwaggerSpecCache(
+                        Paths.get(SPEC_CACHE_PATH),
+                        options.getSwaggerUrl(ServiceWrapperGenerator.SWAGGER_API_URL),
+                        options.isOffline(),
+                        options.newSpecClient());
+        BatchClassWriter writer =
+                new BatchClassWriter(manifest, Paths.get(STAGING_PATH), options.getFsyncPolicy());
+        GeneratedSourceVerifier verifier = options.isVerify() ? new GeneratedSourceVerifier() : null;
+        RunMetrics metrics = new RunMetrics();
+        // shared by every service, so concurrent services do not multiply the threads
+        ForkJoinPool pool = new ForkJoinPool(options.getConcurrency());
+        List<String> sources = new ArrayList<>(options.getServices());
+        sources.addAll(options.getSpecFiles());
+        List<ServiceResult> results;
+        try {
+            results =
+                    new ServiceGenerationRunner(options.getConcurrency())
+                            .run(
+                                    sources,
+                                    source -> {
+                                        ServiceMetrics serviceMetrics = metrics.service(source);
+                                        Reader spec;
+                                        try (PhaseTimer timer = serviceMetrics.time(Phase.FETCH)) {
+                                            spec = openSpec(source, options, specCache);
+                                            timer.count(1);
+                                        }
+                                        try (Reader reader = spec) {
+                                            new ModelGenerator(
+                                                            writer,
+                                                            DEFAULT_BASE_PATH,
+                                                            pool,
+                                                            verifier,
+                                                            serviceMetrics)
+                                                    .generateModelClasses(reader);
+                                        }
+                                    });
+        } finally {
+            pool.shutdown();
+        }
+
+        results.stream().filter(r -> !r.isSuccess()).forEach(r -> r.failure.printStackTrace());
+        System.out.print(ServiceGenerationRunner.summary(results));
+        System.out.println("Swagger specs: " + specCache.summary());
+
+        ServiceGenerationRunner.commit(
+                "Models", results, writer, verifier, metrics, Paths.get(options.getReportPath(REPORT_PATH)));
+    }
+
+    private static Reader openSpec(String source, GeneratorOptions options, SwaggerSpecCache specCache)
+            throws IOException {
+        if (options.getSpecFiles().contains(source)) {
+            return Files.newBufferedReader(Paths.get(source), StandardCharsets.UTF_8);
+        }
+        return specCache.open(source, source);
+    }
+
+    public void generateModelClasses(String json) throws IOException {
+        generateModelClasses(new StringReader(json));
+    }
+
+    public void generateModelClasses(Reader spec) throws IOException {
+        ModelSpec modelSpec;
+        try (PhaseTimer timer = metrics.time(Phase.PARSE)) {
+            modelSpec = SwaggerSpecParser.parseDefinitions(spec);
+            timer.count(modelSpec.definitions.size());
+        }
+        generateModelClasses(modelSpec);
+    }
+
+    public void generateModelClasses(ModelSpec spec) {
+        List<ClassBuilder> classBuilders;
+        try (PhaseTimer timer = metrics.time(Phase.RENDER)) {
+            classBuilders = buildModelClasses(spec);
+            timer.count(classBuilders.size());
+            metrics.add(Counter.CLASSES, classBuilders.size());
+        }
+
+        String path = generateOutputDirectory(spec.basePath);
+        try (PhaseTimer timer = metrics.time(Phase.WRITE)) {
+            pool.submit(() -> classBuilders.parallelStream().forEach(c -> writeClass(c, path))).join();
+            timer.count(classBuilders.size());
+        }
+    }
+
+    // one class per definition, in spec order
+    public List<ClassBuilder> buildModelClasses(ModelSpec spec) {
+        String packagePath = BASE_PACKAGE_PATH.render(NAMING.packageName(spec.basePath));
+        Map<String, String> classNames = generateClassNames(spec.definitions.keySet());
+        List<Map.Entry<String, Schema>> definitions = new ArrayList<>(spec.definitions.entrySet());
+        // parallel streams keep the encounter order, whichever thread builds which class
+        return pool.submit(
+                        () ->
+                                definitions.parallelStream()
+                                        .map(
+                                                d ->
+                                                        buildModelClass(
+                                                                packagePath,
+                                                                classNames.get(d.getKey()),
+                                                                d.getValue(),
+                                                                classNames))
+                                        .collect(Collectors.toList()))
+                .join();
+    }
+
+    public String generateOutputDirectory(String servicePath) {
+        return Paths.get(basePath.render(NAMING.packageName(servicePath)))
+                .toAbsolutePath()
+                .normalize()
+                .toString();
+    }
+
+    private ClassBuilder buildModelClass(
+            String packagePath, String className, Schema definition, Map<String, String> classNames) {
+        ClassBuilder classBuilder = new ClassBuilder(packagePath, className, MODEL_TEMPLATES);
+        Map<String, Schema> properties = new LinkedHashMap<>();
+        collectProperties(definition, properties);
+
+        Set<String> fieldNames = new HashSet<>();
+        properties.forEach(
+                (property, schema) -> {
+                    String fieldName = generateFieldName(property, fieldNames);
+                    String type = generateJavaType(schema, classNames, classBuilder);
+                    List<String> annotations = List.of();
+                    if (!fieldName.equals(property)) {
+                        // keeps the json name for properties that are no valid java identifier
+                        annotations =
+                                List.of(JSON_PROPERTY_TEMPLATE.render(ClassBuilder.escapeStringLiteral(property)));
+                        classBuilder.addImportStatement(JSON_PROPERTY_IMPORT);
+                    }
+                    classBuilder.addField(annotations, "private", false, false, type, fieldName, "");
+
+                    String accessorName = ClassBuilder.capitalizeString(fieldName);
+                    classBuilder.addMethod(
+                            "public",
+                            false,
+                            type,
+                            GETTER_NAME_TEMPLATE.render(accessorName),
+                            "",
+                            "",
+                            GETTER_DEFINITION_TEMPLATE.render(fieldName));
+                    classBuilder.addMethod(
+                            "public",
+                            false,
+                            "void",
+                            SETTER_NAME_TEMPLATE.render(accessorName),
+                            ARGUMENT_TEMPLATE.render(type, fieldName),
+                            "",
+                            SETTER_DEFINITION_TEMPLATE.render(fieldName, fieldName));
+                });
+        return classBuilder;
+    }
+
+    // inline allOf parts are merged in, referenced ones have their own class and are left out
+    private void collectProperties(Schema schema, Map<String, Schema> properties) {
+        if (schema.properties != null) {
+            properties.putAll(schema.properties);
+        }
+        if (schema.allOf != null) {
+            schema.allOf.stream().filter(s -> s.ref == null).forEach(s -> collectProperties(s, properties));
+        }
+    }
+
+    private String generateJavaType(Schema schema, Map<String, String> classNames, ClassBuilder classBuilder) {
+        if (schema == null) {
+            return "Object";
+        }
+        if (schema.ref != null) {
+            return classNames.getOrDefault(schema.ref.substring(schema.ref.lastIndexOf('/') + 1), "Object");
+        }
+        if (schema.allOf != null && schema.allOf.size() == 1) {
+            return generateJavaType(schema.allOf.get(0), classNames, classBuilder);
+        }
+        String format = schema.format == null ? "" : schema.format;
+        switch (schema.type == null ? "object" : schema.type) {
+            case "string":
+                if (format.equals("date")) {
+                    classBuilder.addImportStatement("java.time.LocalDate");
+                    return "LocalDate";
+                }
+                if (format.equals("date-time")) {
+                    classBuilder.addImportStatement("java.time.OffsetDateTime");
+                    return "OffsetDateTime";
+                }
+                return "String";
+            case "integer":
+                return format.equals("int64") ? "Long" : "Integer";
+            case "number":
+                if (format.equals("float")) {
+                    return "Float";
+                }
+                if (format.equals("double")) {
+                    return "Double";
+                }
+                classBuilder.addImportStatement("java.math.BigDecimal");
+                return "BigDecimal";
+            case "boolean":
+                return "Boolean";
+            case "file":
+                classBuilder.addImportStatement("java.io.File");
+                return "File";
+            case "array":
+                classBuilder.addImportStatement(LIST_IMPORT);
+                return LIST_TEMPLATE.render(generateJavaType(schema.items, classNames, classBuilder));
+            default:
+                if (schema.additionalProperties != null && schema.additionalProperties.isObject()) {
+                    classBuilder.addImportStatement(MAP_IMPORT);
+                    Schema values = MAPPER.convertValue(schema.additionalProperties, Schema.class);
+                    return MAP_TEMPLATE.render(generateJavaType(values, classNames, classBuilder));
+                }
+                if (schema.additionalProperties != null && schema.additionalProperties.asBoolean()) {
+                    classBuilder.addImportStatement(MAP_IMPORT);
+                    return MAP_TEMPLATE.render("Object");
+                }
+                // inline objects get no class of their own
+                return "Object";
+        }
+    }
+
+    private void writeClass(ClassBuilder classBuilder, String path) {
+        if (writer != null) {
+            long bytes = writer.stage(classBuilder, path);
+            metrics.add(bytes > 0 ? Counter.FILES_WRITTEN : Counter.FILES_SKIPPED, 1);
+            metrics.add(Counter.BYTES_WRITTEN, bytes);
+        } else {
+            classBuilder.generateClassAt(path);
+            metrics.add(Counter.FILES_WRITTEN, 1);
+        }
+        if (verifier != null) {
+            Map<String, String> memberOrigins = new HashMap<>();
+            String origin = "definition " + classBuilder.getClassName();
+            classBuilder.getFields().forEach(f -> memberOrigins.put(f.name, origin));
+            classBuilder.getMethods().forEach(m -> memberOrigins.put(m.signature, origin));
+            verifier.add(classBuilder, memberOrigins);
+        }
+    }
+
+    // settled in spec order before anything runs in parallel, so clashing names always get the
+    // same suffixes
+    private Map<String, String> generateClassNames(Set<String> definitionNames) {
+        Map<String, String> classNames = new HashMap<>();
+        Set<String> usedNames = new HashSet<>();
+        for (String definitionName : definitionNames) {
+            String name = generateClassName(definitionName);
+            String unique = name;
+            for (int i = 2; !usedNames.add(unique); i++) {
+                unique = name + i;
+            }
+            classNames.put(definitionName, unique);
+        }
+        return classNames;
+    }
+
+    // springfox generics such as ResponseEntity«List«Item»» -> ResponseEntityListItem, List -> ListModel
+    private String generateClassName(String definitionName) {
+        StringBuilder result = new StringBuilder(definitionName.length());
+        for (String word : definitionName.split("[^A-Za-z0-9]+")) {
+            if (!word.isEmpty()) {
+                result.append(ClassBuilder.capitalizeString(word));
+            }
+        }
+        if (result.length() == 0 || Character.isDigit(result.charAt(0))) {
+            result.insert(0, "Model");
+        }
+        if (RESERVED_CLASS_NAMES.contains(result.toString())) {
+            result.append(RESERVED_CLASS_NAME_SUFFIX);
+        }
+        return result.toString();
+    }
+
+    // first-name -> firstName, class -> classValue
+    private String generateFieldName(String property, Set<String> usedNames) {
+        StringBuilder result = new StringBuilder(property.length());
+        for (String word : property.split("[^A-Za-z0-9_$]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            result.append(result.length() == 0 ? word : ClassBuilder.capitalizeString(word));
+        }
+        if (result.length() == 0 || Character.isDigit(result.charAt(0))) {
+            result.insert(0, "value");
+        }
+        String name = result.toString();
+        if (SourceVersion.isKeyword(name)) {
+            name = name + "Value";
+        }
+        // unique by accessor name, so id and Id do not both get getId()
+        String unique = name;
+        for (int i = 2; !usedNames.add(ClassBuilder.capitalizeString(unique)); i++) {
+            unique = name + i;
+        }
+        return unique;
+    }
+}
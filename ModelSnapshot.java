@@ -0,0 +1,264 @@
+package com.company.test.utilities.classgenerator;
+
+import com.company.test.utilities.classgenerator.ServiceWrapperGenerator.ApiCallMethod;
+import com.company.test.utilities.classgenerator.ServiceWrapperGenerator.Parameter;
+import com.company.test.utilities.classgenerator.SwaggerSpecParser.SwaggerSpec;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Versioned binary snapshot of one service's completed Path, ApiCallMethod and Parameter model,
+ * keyed by the SHA-256 of the spec it was derived from. When the spec has not changed the model
+ * is read back from the memory-mapped snapshot instead of being parsed and derived again. Every
+ * string is written once and referred back to afterwards, since verbs, parameter names, types
+ * and endpoint names repeat throughout a spec.
+ */
+public class ModelSnapshot {
+
+    // bump whenever the format or the way any of the model's fields is derived changes
+    private static final int VERSION = 3;
+    private static final int MAGIC = 0x53574d53;
+
+    private static final int NULL_STRING = 0;
+    private static final int NEW_STRING = 1;
+    // back references start after the two markers
+    private static final int FIRST_REFERENCE = 2;
+
+    private final Path file;
+
+    public ModelSnapshot(Path directory, String source) {
+        // sources are service names or spec file paths, so the hash keeps look-alikes apart
+        String name = source.replaceAll("[^A-Za-z0-9]+", "_") + "-" + Integer.toHexString(source.hashCode());
+        this.file = directory.resolve(name + ".snapshot");
+    }
+
+    // the completed model if the snapshot was taken of this spec by this version, null otherwise
+    public SwaggerSpec load(String specHash) throws IOException {
+        if (specHash == null || !Files.exists(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return decode(buffer, specHash);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            // a truncated or corrupt snapshot is as good as none
+            return null;
+        }
+    }
+
+    // makes the next run parse and derive the spec again
+    public void discard() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    // paths are written as they are completed, the snapshot only replaces the previous one on commit
+    public Writer newWriter() throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        return new Writer(file, Files.createTempFile(file.toAbsolutePath().getParent(), "snapshot", ".tmp"));
+    }
+
+    public static class Writer implements Closeable {
+        private final Path file;
+        private final Path temp;
+        private final DataOutputStream out;
+        private final Map<String, Integer> strings = new HashMap<>();
+        private String basePath;
+        private int pathCount;
+        private boolean committed;
+
+        private Writer(Path file, Path temp) throws IOException {
+            this.file = file;
+            this.temp = temp;
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+        }
+
+        public void setBasePath(String basePath) {
+            this.basePath = basePath;
+        }
+
+        public void write(ServiceWrapperGenerator.Path path) throws IOException {
+            writeString(path.endpoint);
+            writeVarInt(path.apiCallMethods.size());
+            for (ApiCallMethod ac : path.apiCallMethods) {
+                writeString(ac.restVerb);
+                writeString(ac.summary);
+                writeString(ac.consumes);
+                writeString(ac.endpointName);
+                writeString(ac.methodName);
+                writeString(ac.methodArguments);
+                writeString(ac.restParamMethodChain);
+                writeString(ac.operationId);
+                writeString(ac.controller);
+                writeString(ac.swaggerPath);
+                writeVarInt(ac.parameters.size());
+                for (Parameter parameter : ac.parameters) {
+                    writeString(parameter.name);
+                    writeString(parameter.in);
+                    writeString(parameter.required);
+                    writeString(parameter.type);
+                }
+            }
+            pathCount++;
+        }
+
+        // the trailer goes last since the basePath and the hash may only be known at the very end
+        public void commit(String specHash) throws IOException {
+            long trailer = out.size();
+            writeRawString(basePath);
+            out.writeInt(pathCount);
+            writeRawString(specHash);
+            out.writeLong(trailer);
+            out.close();
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+        }
+
+        // drops the snapshot unless it was committed
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                out.close();
+                Files.deleteIfExists(temp);
+            }
+        }
+
+        private void writeString(String value) throws IOException {
+            if (value == null) {
+                writeVarInt(NULL_STRING);
+                return;
+            }
+            Integer reference = strings.get(value);
+            if (reference != null) {
+                writeVarInt(FIRST_REFERENCE + reference);
+                return;
+            }
+            strings.put(value, strings.size());
+            writeVarInt(NEW_STRING);
+            writeRawString(value);
+        }
+
+        private void writeRawString(String value) throws IOException {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length + 1);
+            out.write(bytes);
+        }
+
+        private void writeVarInt(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                out.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte(value);
+        }
+    }
+
+    private static SwaggerSpec decode(ByteBuffer buffer, String specHash) {
+        if (buffer.limit() < 16 || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            return null;
+        }
+        buffer.position((int) buffer.getLong(buffer.limit() - 8));
+        String basePath = readRawString(buffer);
+        int pathCount = buffer.getInt();
+        if (!specHash.equals(readRawString(buffer))) {
+            return null;
+        }
+
+        SwaggerSpec spec = new SwaggerSpec();
+        spec.basePath = basePath;
+        List<String> strings = new ArrayList<>();
+        buffer.position(8);
+        for (int i = 0; i < pathCount; i++) {
+            ServiceWrapperGenerator.Path path = new ServiceWrapperGenerator.Path();
+            path.endpoint = readString(buffer, strings);
+            int methodCount = readVarInt(buffer);
+            path.apiCallMethods = new ArrayList<>(methodCount);
+            for (int m = 0; m < methodCount; m++) {
+                ApiCallMethod ac = new ApiCallMethod();
+                ac.restVerb = readString(buffer, strings);
+                ac.summary = readString(buffer, strings);
+                ac.consumes = readString(buffer, strings);
+                ac.endpointName = readString(buffer, strings);
+                ac.methodName = readString(buffer, strings);
+                ac.methodArguments = readString(buffer, strings);
+                ac.restParamMethodChain = readString(buffer, strings);
+                ac.operationId = readString(buffer, strings);
+                ac.controller = readString(buffer, strings);
+                ac.swaggerPath = readString(buffer, strings);
+                int parameterCount = readVarInt(buffer);
+                ac.parameters = new ArrayList<>(parameterCount);
+                for (int p = 0; p < parameterCount; p++) {
+                    Parameter parameter = new Parameter();
+                    parameter.name = readString(buffer, strings);
+                    parameter.in = readString(buffer, strings);
+                    parameter.required = readString(buffer, strings);
+                    parameter.type = readString(buffer, strings);
+                    ac.parameters.add(parameter);
+                }
+                path.apiCallMethods.add(ac);
+            }
+            spec.paths.add(path);
+        }
+        return spec;
+    }
+
+    private static String readString(ByteBuffer buffer, List<String> strings) {
+        int marker = readVarInt(buffer);
+        if (marker == NULL_STRING) {
+            return null;
+        }
+        if (marker == NEW_STRING) {
+            String value = readRawString(buffer);
+            strings.add(value);
+            return value;
+        }
+        return strings.get(marker - FIRST_REFERENCE);
+    }
+
+    private static String readRawString(ByteBuffer buffer) {
+        int length = readVarInt(buffer) - 1;
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw new IllegalArgumentException("malformed snapshot");
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int readVarInt(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            if (shift > 28) {
+                throw new IllegalArgumentException("malformed snapshot");
+            }
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.company.test.utilities.classgenerator;
+
+import com.company.test.utilities.classgenerator.ServiceGenerationRunner.ServiceResult;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Wall time, allocated bytes and item counts for every phase of a generation run, per service,
+ * plus counters such as operations generated and bytes written. Written as a JSON run report at
+ * the end of a run, and every phase is also a JFR event so slow services can be profiled with a
+ * flight recording.
+ */
+public class RunMetrics {
+
+    public enum Phase {
+        // fetching or reading the swagger spec
+        FETCH,
+        // looking up the completed model of the spec in the snapshots, in place of parse and model
+        // when it is found
+        SNAPSHOT,
+        // parsing the spec into the Path and ApiCallMethod model
+        PARSE,
+        // deriving names, arguments and method chains for every operation
+        MODEL,
+        // turning the model into ClassBuilder members
+        RENDER,
+        // hashing, rendering to disk and staging the classes
+        WRITE,
+        // compiling the generated classes in memory, once per run
+        VERIFY,
+        // moving staged classes into place and saving the manifest, once per run
+        COMMIT
+    }
+
+    public enum Counter {
+        OPERATIONS,
+        PARAMETERS,
+        CLASSES,
+        FILES_WRITTEN,
+        FILES_SKIPPED,
+        BYTES_WRITTEN,
+        // services generated from a model snapshot instead of their spec
+        SNAPSHOTS_LOADED
+    }
+
+    @Name("com.company.classgenerator.GenerationPhase")
+    @Label("Generation Phase")
+    @Category("Class Generator")
+    static class GenerationPhaseEvent extends Event {
+        @Label("Service")
+        String service;
+
+        @Label("Phase")
+        String phase;
+
+        @Label("Allocated")
+        @DataAmount
+        long allocatedBytes;
+
+        @Label("Items")
+        long items;
+    }
+
+    private static class PhaseStats {
+        long wallNanos;
+        long allocatedBytes;
+        long items;
+        int invocations;
+    }
+
+    public static class ServiceMetrics {
+        private final String name;
+        private final Map<Phase, PhaseStats> phases = new EnumMap<>(Phase.class);
+        private final Map<Counter, Long> counters = new EnumMap<>(Counter.class);
+
+        public ServiceMetrics(String name) {
+            this.name = name;
+        }
+
+        // times everything up to close(), use with try-with-resources
+        public PhaseTimer time(Phase phase) {
+            return new PhaseTimer(this, phase);
+        }
+
+        public synchronized void add(Counter counter, long amount) {
+            counters.merge(counter, amount, Long::sum);
+        }
+
+        public synchronized long get(Counter counter) {
+            return counters.getOrDefault(counter, 0L);
+        }
+
+        private synchronized void record(Phase phase, long wallNanos, long allocatedBytes, long items) {
+            PhaseStats stats = phases.computeIfAbsent(phase, p -> new PhaseStats());
+            stats.wallNanos += wallNanos;
+            stats.allocatedBytes += allocatedBytes;
+            stats.items += items;
+            stats.invocations++;
+        }
+
+        private synchronized void writeTo(JsonGenerator json) throws IOException {
+            json.writeObjectFieldStart("phases");
+            for (Map.Entry<Phase, PhaseStats> entry : phases.entrySet()) {
+                PhaseStats stats = entry.getValue();
+                json.writeObjectFieldStart(entry.getKey().name().toLowerCase());
+                json.writeNumberField("wallMillis", TimeUnit.NANOSECONDS.toMillis(stats.wallNanos));
+                json.writeNumberField("allocatedBytes", stats.allocatedBytes);
+                json.writeNumberField("items", stats.items);
+                json.writeNumberField("invocations", stats.invocations);
+                json.writeEndObject();
+            }
+            json.writeEndObject();
+            json.writeObjectFieldStart("counters");
+            for (Map.Entry<Counter, Long> entry : counters.entrySet()) {
+                json.writeNumberField(entry.getKey().name().toLowerCase(), entry.getValue());
+            }
+            json.writeEndObject();
+        }
+    }
+
+    public static class PhaseTimer implements AutoCloseable {
+        private final ServiceMetrics metrics;
+        private final Phase phase;
+        private final GenerationPhaseEvent event = new GenerationPhaseEvent();
+        private final long startNanos;
+        private final long startAllocated;
+        private long items;
+
+        private PhaseTimer(ServiceMetrics metrics, Phase phase) {
+            this.metrics = metrics;
+            this.phase = phase;
+            event.begin();
+            this.startAllocated = allocatedBytes();
+            this.startNanos = System.nanoTime();
+        }
+
+        // how many things the phase handled, e.g. paths parsed or classes written
+        public void count(long items) {
+            this.items += items;
+        }
+
+        @Override
+        public void close() {
+            long wallNanos = System.nanoTime() - startNanos;
+            long allocated = startAllocated < 0 ? 0 : allocatedBytes() - startAllocated;
+            metrics.record(phase, wallNanos, allocated, items);
+            event.end();
+            if (event.shouldCommit()) {
+                event.service = metrics.name;
+                event.phase = phase.name();
+                event.allocatedBytes = allocated;
+                event.items = items;
+                event.commit();
+            }
+        }
+    }
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final Instant startedAt = Instant.now();
+    private final long startNanos = System.nanoTime();
+    private final Map<String, ServiceMetrics> services = new TreeMap<>();
+    private final ServiceMetrics run = new ServiceMetrics("run");
+
+    public synchronized ServiceMetrics service(String name) {
+        return services.computeIfAbsent(name, ServiceMetrics::new);
+    }
+
+    // phases that happen once per run rather than per service
+    public ServiceMetrics run() {
+        return run;
+    }
+
+    // sum of a counter over every service
+    public synchronized long total(Counter counter) {
+        return services.values().stream().mapToLong(s -> s.get(counter)).sum();
+    }
+
+    public synchronized void writeReport(Path location, List<ServiceResult> results) throws IOException {
+        Path directory = location.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, location.getFileName().toString(), ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8);
+                JsonGenerator json = JSON_FACTORY.createGenerator(writer)) {
+            json.useDefaultPrettyPrinter();
+            json.writeStartObject();
+            json.writeStringField("startedAt", startedAt.toString());
+            json.writeNumberField(
+                    "wallMillis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+
+            json.writeArrayFieldStart("services");
+            for (ServiceResult result : results) {
+                json.writeStartObject();
+                json.writeStringField("name", result.service);
+                json.writeBooleanField("success", result.isSuccess());
+                json.writeNumberField("elapsedMillis", result.elapsedMillis);
+                if (!result.isSuccess()) {
+                    json.writeStringField("failure", String.valueOf(result.failure));
+                }
+                service(result.service).writeTo(json);
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+
+            json.writeObjectFieldStart("run");
+            run.writeTo(json);
+            json.writeEndObject();
+
+            json.writeObjectFieldStart("totals");
+            for (Counter counter : Counter.values()) {
+                json.writeNumberField(counter.name().toLowerCase(), total(counter));
+            }
+            json.writeEndObject();
+            json.writeEndObject();
+        }
+        Files.move(temp, location, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // bytes allocated by the current thread so far, or -1 where the JVM cannot tell
+    private static long allocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) THREADS;
+            if (hotspot.isThreadAllocatedMemoryEnabled()) {
+                return hotspot.getCurrentThreadAllocatedBytes();
+            }
+        }
+        return -1;
+    }
+}
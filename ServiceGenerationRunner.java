@@ -0,0 +1,160 @@
+package com.company.test.utilities.classgenerator;
+
+import com.company.test.utilities.classgenerator.RunMetrics.Phase;
+import com.company.test.utilities.classgenerator.RunMetrics.PhaseTimer;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs one generation task per service on a bounded pool, or one after another when the
+ * concurrency is 1. A failing service is recorded in its result and never stops the others.
+ */
+public class ServiceGenerationRunner {
+
+    @FunctionalInterface
+    public interface ServiceTask {
+        void generate(String service) throws Exception;
+    }
+
+    public static class ServiceResult {
+        public final String service;
+        public final long elapsedMillis;
+        public final Throwable failure;
+
+        public ServiceResult(String service, long elapsedMillis, Throwable failure) {
+            this.service = service;
+            this.elapsedMillis = elapsedMillis;
+            this.failure = failure;
+        }
+
+        public boolean isSuccess() {
+            return failure == null;
+        }
+    }
+
+    private final int concurrency;
+
+    public ServiceGenerationRunner(int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be at least 1 but was " + concurrency);
+        }
+        this.concurrency = concurrency;
+    }
+
+    // results come back in the same order as the services were given
+    public List<ServiceResult> run(List<String> services, ServiceTask task)
+            throws InterruptedException {
+        List<ServiceResult> results = new ArrayList<>();
+        int threads = Math.min(concurrency, services.size());
+        if (threads <= 1) {
+            services.forEach(service -> results.add(runService(service, task)));
+            return results;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, newThreadFactory());
+        try {
+            List<Future<ServiceResult>> futures = new ArrayList<>();
+            services.forEach(service -> futures.add(executor.submit(() -> runService(service, task))));
+            for (Future<ServiceResult> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    // runService catches everything, so this only happens on an Error
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return results;
+    }
+
+    public static String summary(List<ServiceResult> results) {
+        StringBuilder result = new StringBuilder();
+        long failures = results.stream().filter(r -> !r.isSuccess()).count();
+        result.append(
+                String.format(
+                        "Generated %d of %d service(s), %d failed%n",
+                        results.size() - failures, results.size(), failures));
+        results.forEach(
+                r ->
+                        result.append(
+                                String.format(
+                                        "\t%-30s %6d ms  %s%n",
+                                        r.service,
+                                        r.elapsedMillis,
+                                        r.isSuccess() ? "ok" : "FAILED: " + r.failure)));
+        return result.toString();
+    }
+
+    // verifies and commits everything the services generated, or nothing when any of them
+    // failed, and writes the run report either way
+    public static void commit(
+            String outputName,
+            List<ServiceResult> results,
+            BatchClassWriter writer,
+            GeneratedSourceVerifier verifier,
+            RunMetrics metrics,
+            Path report)
+            throws IOException {
+        try {
+            // all or nothing, a failed run leaves the previous output untouched
+            if (results.stream().anyMatch(r -> !r.isSuccess())) {
+                writer.abort();
+                throw new IllegalStateException(
+                        "generation failed for one or more services, nothing written");
+            }
+            if (verifier != null) {
+                List<GeneratedSourceVerifier.Problem> problems;
+                try (PhaseTimer timer = metrics.run().time(Phase.VERIFY)) {
+                    problems = verifier.verify();
+                    timer.count(problems.size());
+                }
+                problems.forEach(System.err::println);
+                System.out.println("Verification: " + verifier.summary());
+                if (!problems.isEmpty()) {
+                    writer.abort();
+                    throw new IllegalStateException(
+                            problems.size() + " compile error(s) in the generated classes, nothing written");
+                }
+            }
+            try (PhaseTimer timer = metrics.run().time(Phase.COMMIT)) {
+                writer.commit();
+                writer.getManifest().save();
+                timer.count(writer.getManifest().getWrittenCount());
+            }
+            System.out.println(outputName + ": " + writer.summary());
+        } finally {
+            metrics.writeReport(report, results);
+            System.out.println("Run report: " + report.toAbsolutePath().normalize());
+        }
+    }
+
+    private ServiceResult runService(String service, ServiceTask task) {
+        long start = System.nanoTime();
+        Throwable failure = null;
+        try {
+            task.generate(service);
+        } catch (Exception e) {
+            failure = e;
+        }
+        return new ServiceResult(service, (System.nanoTime() - start) / 1_000_000, failure);
+    }
+
+    private ThreadFactory newThreadFactory() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "service-generator-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -1,36 +1,60 @@
 package com.company.test.utilities.classgenerator;
 
-import static com.company.test.utilities.classgenerator.ClassBuilder.capitalizeStringArrToString;
-
+import com.company.test.utilities.classgenerator.RunMetrics.Counter;
+import com.company.test.utilities.classgenerator.RunMetrics.Phase;
+import com.company.test.utilities.classgenerator.RunMetrics.PhaseTimer;
+import com.company.test.utilities.classgenerator.RunMetrics.ServiceMetrics;
+import com.company.test.utilities.classgenerator.ServiceGenerationRunner.ServiceResult;
+import com.company.test.utilities.classgenerator.SwaggerSpecCache.SpecReader;
+import com.company.test.utilities.classgenerator.SwaggerSpecParser.SwaggerSpec;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.google.common.base.CaseFormat;
-import com.company.core.util.JsonHelper;
 import groovyjarjarcommonscli.MissingArgumentException;
-import io.restassured.response.Response;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import net.serenitybdd.rest.SerenityRest;
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-import org.json.simple.parser.ParseException;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class ServiceWrapperGenerator {
 
-    private static final String SWAGGER_API_URL =
+    static final String SWAGGER_API_URL =
             "https://company.com/%s/v2/api-docs?group=%s-service";
     
-    private static final String[] SERVICES =
+    private static final ServiceWrapperNaming NAMING = new ServiceWrapperNaming();
+
+    private static final String MANIFEST_PATH = "./build/classgenerator/servicewrappers.manifest";
+    private static final String SPEC_CACHE_PATH = "./build/classgenerator/specs";
+    private static final String STAGING_PATH = "./build/classgenerator/staging";
+    private static final String REPORT_PATH = "./build/classgenerator/run-report.json";
+    private static final String SNAPSHOT_PATH = "./build/classgenerator/snapshots";
+    // paths or classes each pipeline stage may run ahead of the next
+    private static final int PIPELINE_CAPACITY = 64;
+
+    private static final List<String> CANONICAL_VERB_ORDER =
+            List.of("get", "put", "post", "delete", "options", "head", "patch");
+    private static final String CANONICAL_SNAPSHOT_SUFFIX = "/canonical";
+
+    static final String[] SERVICES =
     {
         "serviceA",
         "serviceB",
         "serviceC"
     };
 
-    private final String BASE_PACKAGE_PATH = "com.company.test.tasks.servicewrappers.%s";
+    private static final Template BASE_PACKAGE_PATH =
+            Template.compile("com.company.test.tasks.servicewrappers.%s");
 
     private final String[] DEFAULT_IMPORTS = {
             "net.serenitybdd.screenplay.Performable", "net.serenitybdd.screenplay.Task"
@@ -40,25 +64,164 @@ public class ServiceWrapperGenerator {
             "com.company.test.abilities.CallProductApi.as", "net.serenitybdd.rest.SerenityRest.rest"
     };
 
-    private final String CLASS_NAME_TEMPLATE = "Use%sServiceTo";
-    private final String METHOD_DEFINITION_TEMPLATE =
-            "return Task.where(\n\t\t\"{0} %s\", \n\t\t\tactor -> {\n\t\t\t\t%s\n\t\t\t}\n\t\t);";
+    private static final Template CLASS_NAME_TEMPLATE = Template.compile("Use%sServiceTo");
+    private static final Template SHARD_CLASS_NAME_TEMPLATE = Template.compile("Use%sService%sTo");
+    private static final Template SHARD_PART_TEMPLATE = Template.compile("Part%s");
+    private static final Template FACADE_METHOD_DEFINITION_TEMPLATE = Template.compile("return %s.%s(%s);");
+    private static final Template METHOD_DEFINITION_TEMPLATE =
+            Template.compile(
+                    "return Task.where(\n\t\t\"{0} %s\", \n\t\t\tactor -> {\n\t\t\t\t%s\n\t\t\t}\n\t\t);");
+
+    private static final String FILE_IMPORT = "java.io.File";
 
     private final String GET_FILE_MIME_TYPE =
             "String mime = URLConnection.guessContentTypeFromName(file.getName());";
 
-    private final String BEFORE_RETURN_STATEMENT = "%s";
+    private static final Template BEFORE_RETURN_STATEMENT = Template.compile("%s");
+
+    // members and imports of the SHARED_SPECS flavour
+    private static final String REQUEST_SPECIFICATION = "RequestSpecification";
+    private static final String[] SHARED_SPEC_IMPORTS = {
+        "io.restassured.builder.RequestSpecBuilder", "io.restassured.specification.RequestSpecification"
+    };
+    private static final Template SHARED_SPEC_METHOD_CHAIN_TEMPLATE =
+            Template.compile("rest().with().spec(%s).%s%s(as(actor).toEndpoint(%s));");
+    // built when the class is initialized, so suites running in parallel all see the same spec
+    private static final Template REQUEST_SPEC_INITIALIZER_TEMPLATE =
+            Template.compile("new RequestSpecBuilder().setContentType(\"%s\").build()");
+    private static final String MIME_TYPES_FIELD = "MIME_TYPES";
+    private static final String MIME_TYPE_METHOD = "mimeType";
+    private static final String[] MIME_TYPE_IMPORTS = {
+        "java.net.URLConnection", "java.util.Map", "java.util.concurrent.ConcurrentHashMap"
+    };
+    private static final String MIME_TYPE_NAME = "String name = file.getName();\n\t\t";
+    private static final String MIME_TYPE_LOOKUP =
+            "return MIME_TYPES.computeIfAbsent(\n\t\t\t\tname.substring(name.lastIndexOf('.') + 1),"
+                    + "\n\t\t\t\textension -> URLConnection.guessContentTypeFromName(name));";
+    private final String GET_CACHED_FILE_MIME_TYPE = "String mime = mimeType(file);";
 
-    private final String REST_CALL_METHOD_CHAIN_TEMPLATE =
-            "rest().with().%s%s%s(as(actor).toEndpoint(%s));";
-    private final String CONTENT_TYPE_TEMPLATE = "contentType(\"%s\").";
-    private final String FORM_DATA_TEMPLATE_ = "multiPart(\"%s\", %s %s).";
-    private final String PATH_PARAM_TEMPLATE = "pathParam(\"%s\", %s).";
-    private final String QUERY_PARAM_TEMPLATE = "queryParam(\"%s\", %s).";
+    // members and imports of the LOAD_TEST flavour, unused imports are dropped once a class is complete
+    private static final Template LOAD_TEST_PACKAGE_PATH = Template.compile("com.company.test.load.%s");
+    private static final Template LOAD_TEST_CLASS_NAME_TEMPLATE = Template.compile("%sServiceLoadClient");
+    private static final Template LOAD_TEST_SHARD_CLASS_NAME_TEMPLATE =
+            Template.compile("%sService%sLoadClient");
+    private static final String LOAD_TEST_RETURN_TYPE = "CompletableFuture<HttpResponse<Void>>";
+    private static final String[] LOAD_TEST_IMPORTS = {
+        "java.io.ByteArrayOutputStream",
+        "java.io.File",
+        "java.io.IOException",
+        "java.io.UncheckedIOException",
+        "java.net.URI",
+        "java.net.URLConnection",
+        "java.net.URLEncoder",
+        "java.net.http.HttpClient",
+        "java.net.http.HttpRequest",
+        "java.net.http.HttpResponse",
+        "java.nio.charset.StandardCharsets",
+        "java.nio.file.Files",
+        "java.util.Objects",
+        "java.util.concurrent.CompletableFuture",
+        "java.util.concurrent.atomic.AtomicLongArray"
+    };
+    private static final Template BASE_URL_INITIALIZER_TEMPLATE =
+            Template.compile("System.getProperty(\"%s.baseUrl\", \"http://localhost:8080%s\")");
+    private static final String CLIENT_INITIALIZER =
+            "HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build()";
+    private static final String DISCARDING_INITIALIZER = "HttpResponse.BodyHandlers.discarding()";
+    private static final String RECORD_LATENCIES_INITIALIZER = "Boolean.getBoolean(\"loadclient.latencies\")";
+    private static final Template LATENCY_FIELD_TEMPLATE = Template.compile("%s_LATENCY");
+    private static final String LATENCY_INITIALIZER = "new AtomicLongArray(64)";
+    private static final String SEND_METHOD = "send";
+    private static final String SEND_ARGUMENTS = "HttpRequest request, AtomicLongArray latency";
+    // latencies are counted in power of two nanosecond buckets, only when asked for
+    private static final String SEND_UNRECORDED =
+            "if (!RECORD_LATENCIES) {\n\t\t\treturn CLIENT.sendAsync(request, DISCARDING);\n\t\t}\n\t\t"
+                    + "long start = System.nanoTime();\n\t\t";
+    private static final String SEND_RECORDED =
+            "return CLIENT.sendAsync(request, DISCARDING)\n\t\t\t\t.whenComplete((response, failure) -> "
+                    + "latency.incrementAndGet(63 - Long.numberOfLeadingZeros((System.nanoTime() - start) | 1)));";
+    private static final String APPEND_QUERY_METHOD = "appendQuery";
+    private static final String APPEND_QUERY_ARGUMENTS = "StringBuilder uri, String name, String value";
+    private static final String APPEND_QUERY_DEFINITION =
+            "if (value != null) {\n\t\t\turi.append(uri.indexOf(\"?\") < 0 ? '?' : '&').append(name).append('=')"
+                    + "\n\t\t\t\t\t.append(URLEncoder.encode(value, StandardCharsets.UTF_8));\n\t\t}";
+    // path arguments are a single segment each, so slashes are encoded and spaces are not turned into +
+    private static final String PATH_SEGMENT_METHOD = "pathSegment";
+    private static final String PATH_SEGMENT_ARGUMENTS = "String value";
+    private static final String PATH_SEGMENT_RETURN =
+            "return URLEncoder.encode(value, StandardCharsets.UTF_8).replace(\"+\", \"%20\");";
+    // header parameters are optional, and HttpRequest.Builder rejects null values
+    private static final String HEADERS_METHOD = "headers";
+    private static final String HEADERS_ARGUMENTS = "HttpRequest.Builder request, String... namesAndValues";
+    private static final String HEADERS_BODY =
+            "for (int i = 0; i < namesAndValues.length; i += 2) {\n"
+                    + "\t\t\tif (namesAndValues[i + 1] != null) {\n"
+                    + "\t\t\t\trequest.header(namesAndValues[i], namesAndValues[i + 1]);\n"
+                    + "\t\t\t}\n\t\t}\n\t\t";
+    private static final String HEADERS_RETURN = "return request;";
+    private static final String BOUNDARY_FIELD = "BOUNDARY";
+    private static final String BOUNDARY = "\"----LoadClientBoundary\"";
+    private static final String MULTIPART_METHOD = "multipart";
+    private static final String MULTIPART_ARGUMENTS = "Object... namesAndValues";
+    // every part is written out once per call, files included
+    private static final String MULTIPART_BODY =
+            "ByteArrayOutputStream body = new ByteArrayOutputStream();\n\t\t"
+                    + "try {\n\t\t\tfor (int i = 0; i < namesAndValues.length; i += 2) {\n"
+                    + "\t\t\t\tObject value = namesAndValues[i + 1];\n"
+                    + "\t\t\t\tif (value == null) {\n\t\t\t\t\tcontinue;\n\t\t\t\t}\n"
+                    + "\t\t\t\tString header = \"--\" + BOUNDARY + \"\\r\\nContent-Disposition: form-data; name=\\\"\" + namesAndValues[i] + \"\\\"\";\n"
+                    + "\t\t\t\tif (value instanceof File) {\n"
+                    + "\t\t\t\t\tString name = ((File) value).getName();\n"
+                    + "\t\t\t\t\theader += \"; filename=\\\"\" + name + \"\\\"\\r\\nContent-Type: \"\n"
+                    + "\t\t\t\t\t\t\t+ Objects.requireNonNullElse(URLConnection.guessContentTypeFromName(name), \"application/octet-stream\");\n"
+                    + "\t\t\t\t}\n"
+                    + "\t\t\t\tbody.write((header + \"\\r\\n\\r\\n\").getBytes(StandardCharsets.UTF_8));\n"
+                    + "\t\t\t\tbody.write(value instanceof File\n"
+                    + "\t\t\t\t\t\t? Files.readAllBytes(((File) value).toPath())\n"
+                    + "\t\t\t\t\t\t: value.toString().getBytes(StandardCharsets.UTF_8));\n"
+                    + "\t\t\t\tbody.write(\"\\r\\n\".getBytes(StandardCharsets.UTF_8));\n"
+                    + "\t\t\t}\n"
+                    + "\t\t\tbody.write((\"--\" + BOUNDARY + \"--\\r\\n\").getBytes(StandardCharsets.UTF_8));\n"
+                    + "\t\t} catch (IOException e) {\n\t\t\tthrow new UncheckedIOException(e);\n\t\t}\n\t\t";
+    private static final String MULTIPART_RETURN = "return body.toByteArray();";
+    private static final Template LOAD_TEST_URI_BUILDER_TEMPLATE =
+            Template.compile("StringBuilder uri = new StringBuilder(%s);\n\t\t");
+    private static final Template LOAD_TEST_QUERY_TEMPLATE =
+            Template.compile("appendQuery(uri, \"%s\", %s);\n\t\t");
+    private static final Template LOAD_TEST_METHOD_DEFINITION_TEMPLATE =
+            Template.compile(
+                    "return send(\n\t\t\t\t%s\n\t\t\t\t\t\t.method(\"%s\", %s)"
+                            + "\n\t\t\t\t\t\t.build(),\n\t\t\t\t%s);");
+    private static final Template LOAD_TEST_REQUEST_BUILDER_TEMPLATE =
+            Template.compile("HttpRequest.newBuilder(URI.create(%s)).header(\"Content-Type\", %s)");
+    private static final Template LOAD_TEST_HEADERS_TEMPLATE = Template.compile("headers(%s%s)");
+    private static final Template LOAD_TEST_HEADER_TEMPLATE = Template.compile(", \"%s\", %s");
+    private static final Template LOAD_TEST_PATH_ARGUMENT_TEMPLATE = Template.compile(" + pathSegment(%s)");
+    private static final String MULTIPART_CONTENT_TYPE = "\"multipart/form-data; boundary=\" + BOUNDARY";
+    private static final String NO_BODY = "HttpRequest.BodyPublishers.noBody()";
+    private static final Template BYTE_ARRAY_BODY_TEMPLATE =
+            Template.compile("HttpRequest.BodyPublishers.ofByteArray(%s)");
+    private static final Template MULTIPART_BODY_TEMPLATE = Template.compile("multipart(%s)");
+    private static final Pattern PATH_PARAMETER = Pattern.compile("\\{([^}]+)}");
+    // {?name,size} only lists query parameters, which are appended separately
+    private static final Pattern QUERY_TEMPLATE = Pattern.compile("\\{\\?[^}]*}");
+    // load clients take bodies serialized up front, so a run does not serialize the same body again
+    private static final String OBJECT_BODY_ARGUMENT = "Object body";
+    private static final String BYTE_ARRAY_BODY_ARGUMENT = "byte[] body";
+
+    private static final Template REST_CALL_METHOD_CHAIN_TEMPLATE =
+            Template.compile("rest().with().%s%s%s(as(actor).toEndpoint(%s));");
+    private static final Template CONTENT_TYPE_TEMPLATE = Template.compile("contentType(\"%s\").");
+    private static final Template FORM_DATA_TEMPLATE_ = Template.compile("multiPart(\"%s\", %s%s).");
+    private static final Template PATH_PARAM_TEMPLATE = Template.compile("pathParam(\"%s\", %s).");
+    private static final Template QUERY_PARAM_TEMPLATE = Template.compile("queryParam(\"%s\", %s).");
     private final String BODY_TEMPLATE = "body(body).";
 
-    private final String DEFAULT_BASE_PATH =
-            "./src/main/java/com/company/test/tasks/servicewrappers/%s";
+    // where the package of each service lives below a source root
+    static final String PACKAGE_DIRECTORY = "com/company/test/tasks/servicewrappers/%s";
+    static final String LOAD_TEST_PACKAGE_DIRECTORY = "com/company/test/load/%s";
+    private static final String DEFAULT_BASE_PATH = "./src/main/java/" + PACKAGE_DIRECTORY;
+    private static final String LOAD_TEST_BASE_PATH = "./src/main/java/" + LOAD_TEST_PACKAGE_DIRECTORY;
 
     @JsonIgnoreProperties(ignoreUnknown = true)
     public static class Parameter {
@@ -80,6 +243,8 @@ public class ServiceWrapperGenerator {
         public String restParamMethodChain;
         public String operationId;
         public String controller;
+        // the path as swagger lists it, templates included, e.g. /v1/{entityId}/items/{itemId}
+        public String swaggerPath;
     }
 
     @JsonIgnoreProperties(ignoreUnknown = true)
@@ -88,128 +253,865 @@ public class ServiceWrapperGenerator {
         public List<ApiCallMethod> apiCallMethods;
     }
 
-    public static void main(String[] args) throws ParseException, MissingArgumentException {
-        if (args.length == 0) {
-            throw new MissingArgumentException("must provide service arguments when running this tasks");
+    /**
+     * How the operations of one service are split across wrapper classes. Shards are named after
+     * their controller tag or numbered, and the optional facade keeps the original class name with
+     * a method delegating to every shard, so existing callers keep compiling.
+     */
+    public static class Sharding {
+        public static final Sharding NONE = new Sharding(false, 0, false);
+
+        public final boolean byController;
+        public final int operationsPerShard;
+        public final boolean facade;
+
+        public Sharding(boolean byController, int operationsPerShard, boolean facade) {
+            if (operationsPerShard < 0) {
+                throw new IllegalArgumentException("operations per shard must be positive");
+            }
+            this.byController = byController;
+            this.operationsPerShard = operationsPerShard;
+            this.facade = facade;
+        }
+
+        public boolean isEnabled() {
+            return byController || operationsPerShard > 0;
+        }
+    }
+
+    // the shape of the generated wrapper methods
+    public enum Flavour {
+        // every call builds its whole request, as the wrappers always have
+        STANDARD,
+        // calls start from a RequestSpecification constant per content type and look file MIME
+        // types up through a cache, so each call only adds its own parameters
+        SHARED_SPECS,
+        // no Screenplay layer: async calls on one pooled HttpClient for load and soak tests, generated
+        // into their own package next to the wrappers
+        LOAD_TEST
+    }
+
+    // the package directory of each service below a source root
+    static String packageDirectory(Flavour flavour) {
+        return flavour == Flavour.LOAD_TEST ? LOAD_TEST_PACKAGE_DIRECTORY : PACKAGE_DIRECTORY;
+    }
+
+    private static String defaultBasePath(Flavour flavour) {
+        return flavour == Flavour.LOAD_TEST ? LOAD_TEST_BASE_PATH : DEFAULT_BASE_PATH;
+    }
+
+    private final BatchClassWriter writer;
+    private final Template basePath;
+    private final Sharding sharding;
+    private final GeneratedSourceVerifier verifier;
+    private final ServiceMetrics metrics;
+    private final Flavour flavour;
+    private final boolean canonical;
+
+    public ServiceWrapperGenerator() {
+        this(null);
+    }
+
+    public ServiceWrapperGenerator(BatchClassWriter writer) {
+        this(writer, DEFAULT_BASE_PATH);
+    }
+
+    // basePath is formatted with the package name of each service, see DEFAULT_BASE_PATH
+    public ServiceWrapperGenerator(BatchClassWriter writer, String basePath) {
+        this(writer, basePath, Sharding.NONE);
+    }
+
+    public ServiceWrapperGenerator(BatchClassWriter writer, String basePath, Sharding sharding) {
+        this(writer, basePath, sharding, null);
+    }
+
+    // every generated class is also handed to verifier, when there is one
+    public ServiceWrapperGenerator(
+            BatchClassWriter writer,
+            String basePath,
+            Sharding sharding,
+            GeneratedSourceVerifier verifier) {
+        this(writer, basePath, sharding, verifier, new ServiceMetrics("service"));
+    }
+
+    public ServiceWrapperGenerator(
+            BatchClassWriter writer,
+            String basePath,
+            Sharding sharding,
+            GeneratedSourceVerifier verifier,
+            ServiceMetrics metrics) {
+        this(writer, basePath, sharding, verifier, metrics, Flavour.STANDARD);
+    }
+
+    public ServiceWrapperGenerator(
+            BatchClassWriter writer,
+            String basePath,
+            Sharding sharding,
+            GeneratedSourceVerifier verifier,
+            ServiceMetrics metrics,
+            Flavour flavour) {
+        this(writer, basePath, sharding, verifier, metrics, flavour, false);
+    }
+
+    // canonical generation makes the output independent of the order of the spec's paths and verbs
+    public ServiceWrapperGenerator(
+            BatchClassWriter writer,
+            String basePath,
+            Sharding sharding,
+            GeneratedSourceVerifier verifier,
+            ServiceMetrics metrics,
+            Flavour flavour,
+            boolean canonical) {
+        this.writer = writer;
+        this.basePath = Template.compile(basePath);
+        this.sharding = sharding;
+        this.verifier = verifier;
+        this.metrics = metrics;
+        this.flavour = flavour;
+        this.canonical = canonical;
+    }
+
+    public static void main(String[] args)
+            throws MissingArgumentException, IOException, InterruptedException {
+        GeneratorOptions options = GeneratorOptions.parse(args, SERVICES);
+        GenerationManifest manifest =
+                options.isIncremental()
+                        ? GenerationManifest.load(Paths.get(MANIFEST_PATH))
+                        : new GenerationManifest(Paths.get(MANIFEST_PATH));
+        SwaggerSpecCache specCache =
+                new SwaggerSpecCache(
+                        Paths.get(SPEC_CACHE_PATH),
+                        options.getSwaggerUrl(SWAGGER_API_URL),
+                        options.isOffline(),
+                        options.newSpecClient());
+
+        if (options.isWatch()) {
+            watch(options, manifest, specCache);
+            return;
+        }
+
+        BatchClassWriter writer =
+                new BatchClassWriter(manifest, Paths.get(STAGING_PATH), options.getFsyncPolicy());
+        GeneratedSourceVerifier verifier = options.isVerify() ? new GeneratedSourceVerifier() : null;
+        RunMetrics metrics = new RunMetrics();
+        List<String> sources = new ArrayList<>(options.getServices());
+        sources.addAll(options.getSpecFiles());
+        List<ServiceResult> results =
+                new ServiceGenerationRunner(options.getConcurrency())
+                        .run(
+                                sources,
+                                source -> {
+                                    ServiceMetrics serviceMetrics = metrics.service(source);
+                                    SpecReader spec;
+                                    try (PhaseTimer timer = serviceMetrics.time(Phase.FETCH)) {
+                                        spec = openSpec(source, options, specCache);
+                                        timer.count(1);
+                                    }
+                                    ModelSnapshot snapshot =
+                                            new ModelSnapshot(Paths.get(SNAPSHOT_PATH), source);
+                                    if (!options.isIncremental()) {
+                                        snapshot.discard();
+                                    }
+                                    try (SpecReader reader = spec) {
+                                        new ServiceWrapperGenerator(
+                                                        writer,
+                                                        defaultBasePath(options.getFlavour()),
+                                                        options.getSharding(),
+                                                        verifier,
+                                                        serviceMetrics,
+                                                        options.getFlavour(),
+                                                        options.isCanonical())
+                                                .generateServiceWrapperClass(reader, snapshot);
+                                    }
+                                });
+
+        results.stream().filter(r -> !r.isSuccess()).forEach(r -> r.failure.printStackTrace());
+        System.out.print(ServiceGenerationRunner.summary(results));
+        System.out.println("Swagger specs: " + specCache.summary());
+
+        ServiceGenerationRunner.commit(
+                "Service wrappers",
+                results,
+                writer,
+                verifier,
+                metrics,
+                Paths.get(options.getReportPath(REPORT_PATH)));
+    }
+
+    // specs are streamed straight into the parser, from disk or while they download
+    private static SpecReader openSpec(
+            String source, GeneratorOptions options, SwaggerSpecCache specCache) throws IOException {
+        if (options.getSpecFiles().contains(source)) {
+            return SpecReader.open(Paths.get(source));
+        }
+        return specCache.open(source, source);
+    }
+
+    // runs until interrupted, polling remote specs on a background thread while local files are watched
+    private static void watch(
+            GeneratorOptions options, GenerationManifest manifest, SwaggerSpecCache specCache)
+            throws IOException, InterruptedException {
+        SpecWatcher watcher =
+                new SpecWatcher(
+                        new ServiceWrapperGenerator(
+                                null,
+                                defaultBasePath(options.getFlavour()),
+                                options.getSharding(),
+                                null,
+                                new ServiceMetrics("watch"),
+                                options.getFlavour(),
+                                options.isCanonical()),
+                        manifest,
+                        Paths.get(STAGING_PATH),
+                        options.getFsyncPolicy());
+        List<java.nio.file.Path> specFiles = new ArrayList<>();
+        options.getSpecFiles().forEach(f -> specFiles.add(Paths.get(f)));
+
+        if (specFiles.isEmpty()) {
+            watcher.pollServices(options.getServices(), specCache, options.getPollInterval());
+            return;
         }
-        if(args[0].equalsIgnoreCase("all")){
-            for (String service : SERVICES) {
-                Response response = SerenityRest.get(String.format(SWAGGER_API_URL, service, service));
-                new ServiceWrapperGenerator().generateServiceWrapperClass(response.getBody().asString());
+        if (!options.getServices().isEmpty()) {
+            Thread poller =
+                    new Thread(
+                            () -> {
+                                try {
+                                    watcher.pollServices(
+                                            options.getServices(), specCache, options.getPollInterval());
+                                } catch (InterruptedException e) {
+                                    Thread.currentThread().interrupt();
+                                }
+                            },
+                            "spec-poller");
+            poller.setDaemon(true);
+            poller.start();
+        }
+        watcher.watchFiles(specFiles);
+    }
+
+    public void generateServiceWrapperClass(String json) throws IOException {
+        generateServiceWrapperClass(new StringReader(json));
+    }
+
+    // streams the spec through the pipeline, so only a bounded part of it is in memory at once,
+    // unless generating canonically, which needs every path before the first can be named
+    public void generateServiceWrapperClass(Reader spec) throws IOException {
+        if (canonical) {
+            generateServiceWrapperClass(parseCanonically(spec));
+        } else {
+            new ServiceWrapperPipeline(this, metrics, verifier != null, PIPELINE_CAPACITY).run(spec);
+        }
+    }
+
+    // generates from the snapshot of an unchanged spec without parsing or deriving anything,
+    // otherwise streams the spec through the pipeline while taking a new snapshot
+    public void generateServiceWrapperClass(SpecReader spec, ModelSnapshot snapshot) throws IOException {
+        SwaggerSpec completed;
+        try (PhaseTimer timer = metrics.time(Phase.SNAPSHOT)) {
+            completed = snapshot.load(snapshotKey(spec.getHash()));
+            timer.count(completed != null ? completed.paths.size() : 0);
+        }
+        if (completed != null) {
+            metrics.add(Counter.SNAPSHOTS_LOADED, 1);
+            countOperations(completed);
+            generateCompletedServiceWrapperClass(completed);
+            return;
+        }
+        try (ModelSnapshot.Writer writer = snapshot.newWriter()) {
+            if (canonical) {
+                SwaggerSpec parsed = parseCanonically(spec);
+                generateServiceWrapperClass(parsed);
+                writer.setBasePath(parsed.basePath);
+                for (Path p : parsed.paths) {
+                    writer.write(p);
+                }
+            } else {
+                new ServiceWrapperPipeline(this, metrics, verifier != null, PIPELINE_CAPACITY, writer)
+                        .run(spec);
             }
+            // downloads are only hashed once they have been read to the end
+            spec.close();
+            writer.commit(snapshotKey(spec.getHash()));
+        }
+    }
+
+    // colliding endpoint names are numbered in a different order when generating canonically
+    private String snapshotKey(String specHash) {
+        return canonical && specHash != null ? specHash + CANONICAL_SNAPSHOT_SUFFIX : specHash;
+    }
+
+    private SwaggerSpec parseCanonically(Reader spec) throws IOException {
+        SwaggerSpec parsed;
+        try (PhaseTimer timer = metrics.time(Phase.PARSE)) {
+            parsed = SwaggerSpecParser.parse(spec);
+            timer.count(parsed.paths.size());
+        }
+        sortCanonically(parsed);
+        return parsed;
+    }
+
+    // paths by endpoint and the verbs of each path in the order swagger lists them
+    static void sortCanonically(SwaggerSpec spec) {
+        spec.paths.sort(Comparator.comparing(p -> p.endpoint));
+        for (Path p : spec.paths) {
+            p.apiCallMethods.sort(
+                    Comparator.comparingInt((ApiCallMethod ac) -> verbRank(ac.restVerb))
+                            .thenComparing(ac -> ac.restVerb));
+        }
+    }
+
+    private static int verbRank(String verb) {
+        int rank = CANONICAL_VERB_ORDER.indexOf(verb.toLowerCase());
+        return rank >= 0 ? rank : CANONICAL_VERB_ORDER.size();
+    }
+
+    // generates from a spec that is already completely in memory, one phase after another
+    public void generateServiceWrapperClass(SwaggerSpec spec) {
+        try (PhaseTimer timer = metrics.time(Phase.MODEL)) {
+            completeSpec(spec);
+            timer.count(countOperations(spec));
         }
-        else{
-            for (String service : args) {
-                Response response = SerenityRest.get(String.format(SWAGGER_API_URL, service, service));
-                new ServiceWrapperGenerator().generateServiceWrapperClass(response.getBody().asString());
+        generateCompletedServiceWrapperClass(spec);
+    }
+
+    private int countOperations(SwaggerSpec spec) {
+        int operations = 0;
+        int parameters = 0;
+        for (Path p : spec.paths) {
+            operations += p.apiCallMethods.size();
+            for (ApiCallMethod ac : p.apiCallMethods) {
+                parameters += ac.parameters.size();
             }
         }
+        metrics.add(Counter.OPERATIONS, operations);
+        metrics.add(Counter.PARAMETERS, parameters);
+        return operations;
     }
 
-    public void generateServiceWrapperClass(String json) throws ParseException {
-        JSONObject swaggerJson = (JSONObject) new JSONParser().parse(json);
+    private void generateCompletedServiceWrapperClass(SwaggerSpec spec) {
+        List<ClassBuilder> classBuilders;
+        try (PhaseTimer timer = metrics.time(Phase.RENDER)) {
+            classBuilders = buildCompletedServiceWrapperClasses(spec);
+            timer.count(classBuilders.size());
+            metrics.add(Counter.CLASSES, classBuilders.size());
+        }
 
-        List<Path> paths = convertPathsMapToPathsList((Map) swaggerJson.get("paths"));
-        String servicePath = (String) swaggerJson.get("basePath");
+        String path = generateOutputDirectory(spec.basePath);
+        Map<String, String> memberOrigins = null;
+        if (verifier != null) {
+            Map<String, String> origins = new HashMap<>();
+            spec.paths.forEach(p -> p.apiCallMethods.forEach(ac -> addMemberOrigins(origins, ac)));
+            memberOrigins = origins;
+        }
+        try (PhaseTimer timer = metrics.time(Phase.WRITE)) {
+            for (ClassBuilder classBuilder : classBuilders) {
+                writeClass(classBuilder, path, memberOrigins);
+            }
+            timer.count(classBuilders.size());
+        }
+    }
 
-        String className = String.format(CLASS_NAME_TEMPLATE, generateClassName(servicePath));
-        String packageName = generatePackageName(servicePath);
-        String packagePath = String.format(BASE_PACKAGE_PATH, packageName);
+    // stages or writes a finished class and hands it to the verifier, if there is one
+    void writeClass(ClassBuilder classBuilder, String path, Map<String, String> memberOrigins) {
+        if (writer != null) {
+            long bytes = writer.stage(classBuilder, path);
+            metrics.add(bytes > 0 ? Counter.FILES_WRITTEN : Counter.FILES_SKIPPED, 1);
+            metrics.add(Counter.BYTES_WRITTEN, bytes);
+        } else {
+            classBuilder.generateClassAt(path);
+            metrics.add(Counter.FILES_WRITTEN, 1);
+        }
+        if (verifier != null) {
+            verifier.add(classBuilder, memberOrigins);
+        }
+    }
 
-        ClassBuilder classBuilder = new ClassBuilder(packagePath, className);
+    // the operation behind the endpoint constant and method of a completed operation
+    void addMemberOrigins(Map<String, String> memberOrigins, ApiCallMethod ac) {
+        String operation = ac.restVerb.toUpperCase() + " " + ac.operationId;
+        memberOrigins.putIfAbsent(
+                flavour == Flavour.LOAD_TEST ? generateLatencyFieldName(ac) : ac.endpointName, operation);
+        memberOrigins.put(
+                ClassBuilder.MethodMember.signature(ac.methodName, generateWrapperArguments(ac)), operation);
+    }
 
-        classBuilder.addArrayOfImportStatements(DEFAULT_IMPORTS);
-        classBuilder.addArrayOfStaticImportStatements(DEFAULT_STATIC_IMPORTS);
+    public ClassBuilder buildServiceWrapperClass(SwaggerSpec spec) {
+        completeSpec(spec);
+        return buildCompletedServiceWrapperClass(spec);
+    }
 
-        paths.forEach(
-                p -> {
-                    p.apiCallMethods.forEach(
-                            ac -> {
-                                classBuilder.addPrivateStaticFinalStringField(ac.endpointName, p.endpoint);
+    // the single wrapper class, or every shard followed by the facade when sharding
+    public List<ClassBuilder> buildServiceWrapperClasses(SwaggerSpec spec) {
+        completeSpec(spec);
+        return buildCompletedServiceWrapperClasses(spec);
+    }
 
-                                String restCallMethodChain =
-                                        String.format(
-                                                REST_CALL_METHOD_CHAIN_TEMPLATE,
-                                                String.format(CONTENT_TYPE_TEMPLATE, ac.consumes),
-                                                ac.restParamMethodChain,
-                                                ac.restVerb,
-                                                ac.endpointName);
+    private ClassBuilder buildCompletedServiceWrapperClass(SwaggerSpec spec) {
+        ClassBuilder classBuilder = newServiceWrapperClass(spec.basePath);
+        spec.paths.forEach(p -> p.apiCallMethods.forEach(ac -> addApiCallMethod(classBuilder, p, ac)));
+        classBuilder.removeUnusedImports();
+        return classBuilder;
+    }
 
-                                String beforeReturnStatement = generateBeforeReturnStatementCode(ac);
+    private List<ClassBuilder> buildCompletedServiceWrapperClasses(SwaggerSpec spec) {
+        if (!sharding.isEnabled()) {
+            return List.of(buildCompletedServiceWrapperClass(spec));
+        }
+        Map<String, ClassBuilder> shards = new LinkedHashMap<>();
+        Map<String, List<ApiCallMethod>> shardMethods = new LinkedHashMap<>();
+        int index = 0;
+        for (Path p : spec.paths) {
+            for (ApiCallMethod ac : p.apiCallMethods) {
+                String shard = generateShardName(ac, index++);
+                ClassBuilder classBuilder =
+                        shards.computeIfAbsent(shard, s -> newServiceWrapperClass(spec.basePath, s));
+                addApiCallMethod(classBuilder, p, ac);
+                shardMethods.computeIfAbsent(shard, s -> new ArrayList<>()).add(ac);
+            }
+        }
+        shards.values().forEach(ClassBuilder::removeUnusedImports);
+        List<ClassBuilder> classBuilders = new ArrayList<>(shards.values());
+        if (sharding.facade) {
+            classBuilders.add(buildFacadeClass(spec.basePath, shardMethods));
+        }
+        return classBuilders;
+    }
+
+    public Sharding getSharding() {
+        return sharding;
+    }
 
-                                classBuilder.addPublicStaticMethod(
-                                        "Performable",
+    public boolean isCanonical() {
+        return canonical;
+    }
+
+    // the shard an operation belongs to, index being its position in the spec; empty when not sharding
+    public String generateShardName(ApiCallMethod ac, int index) {
+        if (sharding.byController) {
+            return ClassBuilder.capitalizeString(NAMING.controllerName(ac.controller));
+        }
+        if (sharding.operationsPerShard > 0) {
+            return SHARD_PART_TEMPLATE.render(String.valueOf(index / sharding.operationsPerShard + 1));
+        }
+        return "";
+    }
+
+    // a class named like the unsharded wrapper whose methods delegate to the shards
+    public ClassBuilder buildFacadeClass(String servicePath, Map<String, List<ApiCallMethod>> shardMethods) {
+        ClassBuilder facade =
+                new ClassBuilder(
+                        generatePackagePath(servicePath), generateShardClassName(servicePath, ""));
+        facade.setCanonicalOrder(canonical);
+        if (flavour == Flavour.LOAD_TEST) {
+            facade.addArrayOfImportStatements(LOAD_TEST_IMPORTS);
+        } else {
+            facade.addImportStatement(DEFAULT_IMPORTS[0]);
+        }
+        shardMethods.forEach(
+                (shard, apiCallMethods) -> {
+                    String shardClassName = generateShardClassName(servicePath, shard);
+                    apiCallMethods.forEach(
+                            ac -> {
+                                if (generateImportPaths(ac.parameters).contains(FILE_IMPORT)) {
+                                    facade.addImportStatement(FILE_IMPORT);
+                                }
+                                facade.addPublicStaticMethod(
+                                        generateReturnType(),
                                         ac.methodName,
-                                        ac.methodArguments,
-                                        beforeReturnStatement,
-                                        String.format(METHOD_DEFINITION_TEMPLATE, ac.summary, restCallMethodChain));
-                                classBuilder.addCollectionOfImportStatements(generateImportPaths(ac.parameters));
+                                        generateWrapperArguments(ac),
+                                        "",
+                                        FACADE_METHOD_DEFINITION_TEMPLATE.render(
+                                                shardClassName,
+                                                ac.methodName,
+                                                generateArgumentNames(generateWrapperArguments(ac))));
                             });
                 });
-        String path =
-                Paths.get(String.format(DEFAULT_BASE_PATH, packageName))
-                        .toAbsolutePath()
-                        .normalize()
-                        .toString();
-        classBuilder.generateClassAt(path);
-    }
-
-    private List<Path> convertPathsMapToPathsList(Map paths) {
-        List<Path> results = new ArrayList<>();
-        paths
-                .keySet()
-                .forEach(
-                        p -> {
-                            Path nextPath = new Path();
-                            nextPath.endpoint = generateEndpointConstantValue((String) p);
-                            nextPath.apiCallMethods = convertApiCallsMapToApiCallsList((Map) paths.get(p));
-                            results.add(nextPath);
-                        });
-        return results;
+        if (flavour == Flavour.LOAD_TEST) {
+            facade.removeUnusedImports();
+        }
+        return facade;
     }
 
-    private List<ApiCallMethod> convertApiCallsMapToApiCallsList(Map apiCalls) {
-        List<ApiCallMethod> results = new ArrayList<>();
-        apiCalls
-                .keySet()
-                .forEach(
-                        ac -> {
-                            Map call = (Map) apiCalls.get(ac);
-                            ApiCallMethod nextApiCallMethod = new ApiCallMethod();
+    // derives everything the wrapper class needs from a freshly parsed spec
+    public void completeSpec(SwaggerSpec spec) {
+        // one endpoint constant per distinct endpoint value, shared by every verb using it
+        Map<String, String> endpointNames = new HashMap<>();
+        Set<String> usedNames = new HashSet<>();
+        spec.paths.forEach(p -> completePath(p, endpointNames, usedNames));
+    }
 
-                            nextApiCallMethod.restVerb = (String) ac;
+    public String generateOutputDirectory(String servicePath) {
+        return Paths.get(basePath.render(generatePackageName(servicePath)))
+                .toAbsolutePath()
+                .normalize()
+                .toString();
+    }
 
-                            nextApiCallMethod.operationId = (String) call.get("operationId");
+    // an empty wrapper class with only the default imports
+    public ClassBuilder newServiceWrapperClass(String servicePath) {
+        return newServiceWrapperClass(servicePath, "");
+    }
 
-                            nextApiCallMethod.controller = (String) ((JSONArray) call.get("tags")).get(0);
+    public ClassBuilder newServiceWrapperClass(String servicePath, String shard) {
+        String className = generateShardClassName(servicePath, shard);
 
-                            nextApiCallMethod.summary = (String) call.get("summary");
+        ClassBuilder classBuilder = new ClassBuilder(generatePackagePath(servicePath), className);
+        classBuilder.setCanonicalOrder(canonical);
+        addDefaultImports(classBuilder);
+        if (flavour == Flavour.LOAD_TEST) {
+            addLoadTestMembers(classBuilder, servicePath);
+        }
+        return classBuilder;
+    }
 
-                            nextApiCallMethod.endpointName =
-                                    generateEndpointConstantName(nextApiCallMethod.operationId);
+    private String generatePackagePath(String servicePath) {
+        return (flavour == Flavour.LOAD_TEST ? LOAD_TEST_PACKAGE_PATH : BASE_PACKAGE_PATH)
+                .render(generatePackageName(servicePath));
+    }
 
-                            nextApiCallMethod.methodName =
-                                    generateMethodName(nextApiCallMethod.operationId, nextApiCallMethod.controller);
+    private String generateReturnType() {
+        return flavour == Flavour.LOAD_TEST ? LOAD_TEST_RETURN_TYPE : "Performable";
+    }
 
-                            nextApiCallMethod.consumes = (String) ((JSONArray) call.get("consumes")).get(0);
+    // the arguments of the generated method. Load clients take serialized bodies, and first every
+    // path template the wrappers leave to the actor, e.g. entityId
+    private String generateWrapperArguments(ApiCallMethod ac) {
+        if (flavour != Flavour.LOAD_TEST) {
+            return ac.methodArguments;
+        }
+        List<String> arguments = new ArrayList<>();
+        generateImplicitPathTemplates(ac).forEach(template -> arguments.add("String " + template));
+        if (!ac.methodArguments.isEmpty()) {
+            arguments.add(ac.methodArguments.replace(OBJECT_BODY_ARGUMENT, BYTE_ARRAY_BODY_ARGUMENT));
+        }
+        return String.join(", ", arguments);
+    }
 
-                            nextApiCallMethod.parameters =
-                                    JsonHelper.deserializeJsonAsList(
-                                            call.get("parameters").toString(), new TypeReference<>() {});
+    // adds the endpoint constant and the method of an operation, replacing any previous version
+    public void addApiCallMethod(ClassBuilder classBuilder, Path path, ApiCallMethod ac) {
+        if (flavour == Flavour.LOAD_TEST) {
+            addLoadTestMethod(classBuilder, ac);
+            return;
+        }
+        classBuilder.addPrivateStaticFinalStringField(ac.endpointName, path.endpoint);
 
-                            nextApiCallMethod.methodArguments =
-                                    generateMethodArguments(nextApiCallMethod.parameters);
+        String restCallMethodChain;
+        if (flavour == Flavour.SHARED_SPECS) {
+            addSharedMembers(classBuilder, ac);
+            restCallMethodChain =
+                    SHARED_SPEC_METHOD_CHAIN_TEMPLATE.render(
+                            NAMING.requestSpecConstantName(ac.consumes),
+                            ac.restParamMethodChain,
+                            ac.restVerb,
+                            ac.endpointName);
+        } else {
+            restCallMethodChain =
+                    REST_CALL_METHOD_CHAIN_TEMPLATE.render(
+                            CONTENT_TYPE_TEMPLATE.render(ac.consumes),
+                            ac.restParamMethodChain,
+                            ac.restVerb,
+                            ac.endpointName);
+        }
 
-                            nextApiCallMethod.restParamMethodChain =
-                                    generateRestParamsMethodChain(nextApiCallMethod.parameters);
+        String beforeReturnStatement = generateBeforeReturnStatementCode(ac);
 
-                            results.add(nextApiCallMethod);
-                        });
-        return results;
+        classBuilder.addPublicStaticMethod(
+                "Performable",
+                ac.methodName,
+                ac.methodArguments,
+                beforeReturnStatement,
+                METHOD_DEFINITION_TEMPLATE.render(ac.summary, restCallMethodChain));
+        addOperationImports(classBuilder, ac);
+    }
+
+    // a request built straight from the operation's parameters, sent through the shared client
+    private void addLoadTestMethod(ClassBuilder classBuilder, ApiCallMethod ac) {
+        String latencyField = generateLatencyFieldName(ac);
+        classBuilder.addField("public", true, true, "AtomicLongArray", latencyField, LATENCY_INITIALIZER);
+
+        StringBuilder headers = new StringBuilder();
+        StringBuilder formData = new StringBuilder();
+        StringBuilder queries = new StringBuilder();
+        String body = NO_BODY;
+        for (Parameter p : ac.parameters) {
+            if (!NAMING.isWrapperParameter(p.name)) {
+                continue;
+            }
+            String argument = generateArgumentName(p);
+            if (p.in.equalsIgnoreCase("body")) {
+                body = BYTE_ARRAY_BODY_TEMPLATE.render(argument);
+            } else if (p.in.equalsIgnoreCase("query")) {
+                LOAD_TEST_QUERY_TEMPLATE.appendTo(queries, p.name, argument);
+            } else if (p.in.equalsIgnoreCase("header")) {
+                LOAD_TEST_HEADER_TEMPLATE.appendTo(headers, p.name, argument);
+            } else if (p.in.equalsIgnoreCase("formData")) {
+                if (formData.length() > 0) {
+                    formData.append(", ");
+                }
+                formData.append('"').append(p.name).append("\", ").append(argument);
+            }
+        }
+        String contentType = "\"" + ac.consumes + "\"";
+        if (formData.length() > 0) {
+            addMultipartMembers(classBuilder);
+            body = BYTE_ARRAY_BODY_TEMPLATE.render(MULTIPART_BODY_TEMPLATE.render(formData));
+            contentType = MULTIPART_CONTENT_TYPE;
+        }
+
+        String uri = generateLoadTestUri(ac);
+        if (hasPathTemplates(ac)) {
+            addPathMembers(classBuilder);
+        }
+        String beforeReturnStatement = "";
+        if (queries.length() > 0) {
+            addQueryMembers(classBuilder);
+            beforeReturnStatement = LOAD_TEST_URI_BUILDER_TEMPLATE.render(uri) + queries;
+            uri = "uri.toString()";
+        }
+        String request = LOAD_TEST_REQUEST_BUILDER_TEMPLATE.render(uri, contentType);
+        if (headers.length() > 0) {
+            addHeaderMembers(classBuilder);
+            request = LOAD_TEST_HEADERS_TEMPLATE.render(request, headers);
+        }
+
+        classBuilder.addPublicStaticMethod(
+                LOAD_TEST_RETURN_TYPE,
+                ac.methodName,
+                generateWrapperArguments(ac),
+                beforeReturnStatement,
+                LOAD_TEST_METHOD_DEFINITION_TEMPLATE.render(
+                        request, ac.restVerb.toUpperCase(), body, latencyField));
+    }
+
+    // the client, the base url and sending with optional latency histograms, shared by every method
+    private void addLoadTestMembers(ClassBuilder classBuilder, String servicePath) {
+        String packageName = generatePackageName(servicePath);
+        // swagger paths start with a slash of their own
+        String basePath =
+                servicePath == null || servicePath.equals("/")
+                        ? ""
+                        : servicePath.endsWith("/") ? servicePath.substring(0, servicePath.length() - 1) : servicePath;
+        classBuilder.addField(
+                "private", true, true, "String", "BASE_URL", BASE_URL_INITIALIZER_TEMPLATE.render(packageName, basePath));
+        classBuilder.addField("private", true, true, "HttpClient", "CLIENT", CLIENT_INITIALIZER);
+        classBuilder.addField(
+                "private", true, true, "HttpResponse.BodyHandler<Void>", "DISCARDING", DISCARDING_INITIALIZER);
+        classBuilder.addField("private", true, true, "boolean", "RECORD_LATENCIES", RECORD_LATENCIES_INITIALIZER);
+        classBuilder.addMethod(
+                "private", true, LOAD_TEST_RETURN_TYPE, SEND_METHOD, SEND_ARGUMENTS, SEND_UNRECORDED, SEND_RECORDED);
+    }
+
+    private void addQueryMembers(ClassBuilder classBuilder) {
+        classBuilder.addMethod(
+                "private", true, "void", APPEND_QUERY_METHOD, APPEND_QUERY_ARGUMENTS, "", APPEND_QUERY_DEFINITION);
+    }
+
+    private void addPathMembers(ClassBuilder classBuilder) {
+        classBuilder.addMethod(
+                "private", true, "String", PATH_SEGMENT_METHOD, PATH_SEGMENT_ARGUMENTS, "", PATH_SEGMENT_RETURN);
+    }
+
+    private void addHeaderMembers(ClassBuilder classBuilder) {
+        classBuilder.addMethod(
+                "private", true, "HttpRequest.Builder", HEADERS_METHOD, HEADERS_ARGUMENTS, HEADERS_BODY, HEADERS_RETURN);
+    }
+
+    private void addMultipartMembers(ClassBuilder classBuilder) {
+        classBuilder.addField("private", true, true, "String", BOUNDARY_FIELD, BOUNDARY);
+        classBuilder.addMethod(
+                "private", true, "byte[]", MULTIPART_METHOD, MULTIPART_ARGUMENTS, MULTIPART_BODY, MULTIPART_RETURN);
+    }
+
+    // BASE_URL + "/v1/" + pathSegment(entityId) + "/items/" + pathSegment(itemId), built from the
+    // swagger path since the endpoint constants leave out everything up to the entityId
+    private String generateLoadTestUri(ApiCallMethod ac) {
+        Map<String, String> pathArguments = generatePathArguments(ac);
+        String swaggerPath = generatePathWithoutQuery(ac);
+        StringBuilder result = new StringBuilder("BASE_URL");
+        Matcher matcher = PATH_PARAMETER.matcher(swaggerPath);
+        int start = 0;
+        while (matcher.find()) {
+            appendStringLiteral(result, swaggerPath.substring(start, matcher.start()));
+            LOAD_TEST_PATH_ARGUMENT_TEMPLATE.appendTo(
+                    result, pathArguments.getOrDefault(matcher.group(1), matcher.group(1)));
+            start = matcher.end();
+        }
+        appendStringLiteral(result, swaggerPath.substring(start));
+        return result.toString();
+    }
+
+    // the argument of every path template a wrapper parameter stands for, by template
+    private Map<String, String> generatePathArguments(ApiCallMethod ac) {
+        Map<String, String> pathArguments = new HashMap<>();
+        for (Parameter p : ac.parameters) {
+            if (NAMING.isWrapperParameter(p.name) && p.in.equalsIgnoreCase("path")) {
+                pathArguments.put(p.name, generateArgumentName(p));
+            }
+        }
+        return pathArguments;
+    }
+
+    // path templates without a wrapper parameter, such as the implicit entityId, in path order
+    private Set<String> generateImplicitPathTemplates(ApiCallMethod ac) {
+        Set<String> templates = new LinkedHashSet<>();
+        Map<String, String> pathArguments = generatePathArguments(ac);
+        Matcher matcher = PATH_PARAMETER.matcher(generatePathWithoutQuery(ac));
+        while (matcher.find()) {
+            if (!pathArguments.containsKey(matcher.group(1))) {
+                templates.add(matcher.group(1));
+            }
+        }
+        return templates;
+    }
+
+    private boolean hasPathTemplates(ApiCallMethod ac) {
+        return PATH_PARAMETER.matcher(generatePathWithoutQuery(ac)).find();
+    }
+
+    private String generatePathWithoutQuery(ApiCallMethod ac) {
+        return QUERY_TEMPLATE.matcher(ac.swaggerPath).replaceAll("");
+    }
+
+    private static void appendStringLiteral(StringBuilder result, String literal) {
+        if (!literal.isEmpty()) {
+            result.append(" + \"").append(ClassBuilder.escapeStringLiteral(literal)).append('"');
+        }
+    }
+
+    private String generateLatencyFieldName(ApiCallMethod ac) {
+        return LATENCY_FIELD_TEMPLATE.render(CaseFormat.LOWER_CAMEL.to(CaseFormat.UPPER_UNDERSCORE, ac.methodName));
+    }
+
+    // the name generateMethodArguments gives the parameter
+    private String generateArgumentName(Parameter param) {
+        if (param.type != null && param.type.equalsIgnoreCase("file")) {
+            return "file";
+        }
+        if (param.in.equalsIgnoreCase("body")) {
+            return "body";
+        }
+        StringBuilder result = new StringBuilder();
+        appendWithoutQuotes(result, param.name);
+        return result.toString();
+    }
+
+    // the request spec for the operation's content type and the MIME type cache, each added once
+    private void addSharedMembers(ClassBuilder classBuilder, ApiCallMethod ac) {
+        String specField = NAMING.requestSpecConstantName(ac.consumes);
+        if (classBuilder.getField(specField) == null) {
+            classBuilder.addField(
+                    "private",
+                    true,
+                    true,
+                    REQUEST_SPECIFICATION,
+                    specField,
+                    REQUEST_SPEC_INITIALIZER_TEMPLATE.render(ac.consumes));
+        }
+        if (isMultipart(ac) && classBuilder.getField(MIME_TYPES_FIELD) == null) {
+            classBuilder.addField(
+                    "private", true, true, "Map<String, String>", MIME_TYPES_FIELD, "new ConcurrentHashMap<>()");
+            classBuilder.addMethod(
+                    "private", true, "String", MIME_TYPE_METHOD, "File file", MIME_TYPE_NAME, MIME_TYPE_LOOKUP);
+        }
+    }
+
+    private void addOperationImports(ClassBuilder classBuilder, ApiCallMethod ac) {
+        classBuilder.addCollectionOfImportStatements(generateImportPaths(ac.parameters));
+        if (flavour == Flavour.SHARED_SPECS) {
+            classBuilder.addArrayOfImportStatements(SHARED_SPEC_IMPORTS);
+            if (isMultipart(ac)) {
+                classBuilder.addArrayOfImportStatements(MIME_TYPE_IMPORTS);
+            }
+        }
+    }
+
+    public void removeApiCallMethod(ClassBuilder classBuilder, ApiCallMethod ac) {
+        if (flavour == Flavour.LOAD_TEST) {
+            classBuilder.removeField(generateLatencyFieldName(ac));
+        } else {
+            classBuilder.removeField(ac.endpointName);
+        }
+        classBuilder.removeMethod(ac.methodName, generateWrapperArguments(ac));
+    }
+
+    // recomputes the imports and shared helpers of a class whose operations changed
+    public void refreshSharedMembers(ClassBuilder classBuilder, Collection<ApiCallMethod> apiCallMethods) {
+        classBuilder.clearImports();
+        addDefaultImports(classBuilder);
+        apiCallMethods.forEach(ac -> addOperationImports(classBuilder, ac));
+        if (flavour == Flavour.SHARED_SPECS) {
+            Set<String> contentTypes = new HashSet<>();
+            apiCallMethods.forEach(ac -> contentTypes.add(ac.consumes));
+            for (ClassBuilder.FieldMember field : new ArrayList<>(classBuilder.getFields())) {
+                if (field.dataType.equals(REQUEST_SPECIFICATION)
+                        && contentTypes.stream()
+                                .noneMatch(c -> NAMING.requestSpecConstantName(c).equals(field.name))) {
+                    classBuilder.removeField(field.name);
+                }
+            }
+            if (apiCallMethods.stream().noneMatch(this::isMultipart)) {
+                classBuilder.removeField(MIME_TYPES_FIELD);
+                classBuilder.removeMethod(MIME_TYPE_METHOD, "File file");
+            }
+        }
+        if (flavour == Flavour.LOAD_TEST) {
+            if (apiCallMethods.stream().noneMatch(ac -> hasParameterIn(ac, "query"))) {
+                classBuilder.removeMethod(APPEND_QUERY_METHOD, APPEND_QUERY_ARGUMENTS);
+            }
+            if (apiCallMethods.stream().noneMatch(ac -> hasParameterIn(ac, "header"))) {
+                classBuilder.removeMethod(HEADERS_METHOD, HEADERS_ARGUMENTS);
+            }
+            if (apiCallMethods.stream().noneMatch(this::hasPathTemplates)) {
+                classBuilder.removeMethod(PATH_SEGMENT_METHOD, PATH_SEGMENT_ARGUMENTS);
+            }
+            if (apiCallMethods.stream().noneMatch(ac -> hasParameterIn(ac, "formData"))) {
+                classBuilder.removeField(BOUNDARY_FIELD);
+                classBuilder.removeMethod(MULTIPART_METHOD, MULTIPART_ARGUMENTS);
+            }
+        }
+        classBuilder.removeUnusedImports();
+    }
+
+    private boolean hasParameterIn(ApiCallMethod ac, String in) {
+        return ac.parameters.stream()
+                .anyMatch(p -> NAMING.isWrapperParameter(p.name) && p.in.equalsIgnoreCase(in));
+    }
+
+    private void addDefaultImports(ClassBuilder classBuilder) {
+        if (flavour == Flavour.LOAD_TEST) {
+            classBuilder.addArrayOfImportStatements(LOAD_TEST_IMPORTS);
+            return;
+        }
+        classBuilder.addArrayOfImportStatements(DEFAULT_IMPORTS);
+        classBuilder.addArrayOfStaticImportStatements(DEFAULT_STATIC_IMPORTS);
+    }
+
+    // turns a path parsed by SwaggerSpecParser into everything the wrapper class needs
+    void completePath(Path path, Map<String, String> endpointNames, Set<String> usedNames) {
+        String swaggerPath = path.endpoint;
+        path.endpoint = generateEndpointConstantValue(path.endpoint);
+        String endpointName =
+                endpointNames.computeIfAbsent(
+                        path.endpoint, value -> generateEndpointConstantName(value, usedNames));
+        path.apiCallMethods.forEach(
+                ac -> {
+                    ac.endpointName = endpointName;
+                    ac.swaggerPath = swaggerPath;
+                    completeApiCallMethod(ac);
+                });
+    }
+
+    private void completeApiCallMethod(ApiCallMethod apiCallMethod) {
+        apiCallMethod.methodName =
+                generateMethodName(apiCallMethod.operationId, apiCallMethod.controller);
+
+        apiCallMethod.methodArguments = generateMethodArguments(apiCallMethod.parameters);
+
+        apiCallMethod.restParamMethodChain = generateRestParamsMethodChain(apiCallMethod.parameters);
     }
 
     public String generatePackageName(String path) {
-        return path.replaceAll("[^A-z]+", "").toLowerCase();
+        return NAMING.packageName(path);
     }
 
     private List<String> generateImportPaths(List<Parameter> params) {
@@ -220,7 +1122,7 @@ public class ServiceWrapperGenerator {
                 .forEach(
                         p -> {
                             if (p.type.equalsIgnoreCase("file")) {
-                                result.add("java.io.File");
+                                result.add(FILE_IMPORT);
                                 result.add("java.net.URLConnection");
                             }
                         });
@@ -228,80 +1130,85 @@ public class ServiceWrapperGenerator {
     }
 
     private String generateEndpointConstantValue(String path) {
-        if (path.contains("filter")) {
-            int filterIndex = path.lastIndexOf("{");
-            path = path.substring(0, filterIndex);
-        }
-        return "\"" + path.replaceAll("^.*\\{entityId}/", "").replaceAll("\\{\\?.*", "") + "\"";
+        return NAMING.endpointConstantValue(path);
     }
 
-    private String generateEndpointConstantName(String operationId) {
-        StringBuilder result = new StringBuilder();
-        String[] words = operationId.split("(?=\\p{Upper})");
-
-        for (int i = 0; i < words.length; i++) {
-            result.append(words[i].toUpperCase() + (i != words.length - 1 ? "_" : ""));
+    // distinct endpoint values can still end up with the same name, e.g. "items/{id}" and "items/id"
+    private String generateEndpointConstantName(String endpointValue, Set<String> usedNames) {
+        String name = NAMING.endpointValueConstantName(endpointValue);
+        String unique = name;
+        for (int i = 2; !usedNames.add(unique); i++) {
+            unique = name + "_" + i;
         }
-
-        // find way to replace these with regex above that will not split the all caps Verbs
-        return result
-                .toString()
-                .replaceAll("P_U_T", "PUT")
-                .replaceAll("P_O_S_T", "POST")
-                .replaceAll("G_E_T", "GET")
-                .replaceAll("P_A_T_C_H", "PATCH")
-                .replaceAll("D_E_L_E_T_E", "DELETE");
+        return unique;
     }
 
     private String generateMethodName(String operationId, String controllerNameFromSwagger) {
-        String controllerName =
-                controllerNameFromSwagger.substring(0, controllerNameFromSwagger.length() - 15);
-        String controllerNameInCamelCase =
-                CaseFormat.LOWER_HYPHEN.to(CaseFormat.LOWER_CAMEL, controllerName);
-
-        if (!operationId.toLowerCase().contains(controllerNameInCamelCase.toLowerCase())) {
-            // change casing of first letter of operationId (get --> Get)
-            operationId = operationId.substring(0, 1).toUpperCase() + operationId.substring(1);
-            // add back in the controller to the beginning of the method
-            operationId = controllerNameInCamelCase + operationId;
-        }
-
-        return operationId
-                .replaceAll("GET", "Get")
-                .replaceAll("PUT", "Put")
-                .replaceAll("POST", "Post")
-                .replaceAll("DELETE", "Delete")
-                .replaceAll("PATCH", "Patch")
-                .replaceAll("_.$", "");
+        return NAMING.methodName(operationId, controllerNameFromSwagger);
     }
 
     private String generateMethodArguments(List<Parameter> params) {
         StringBuilder result = new StringBuilder();
         params.forEach(
                 param -> {
-                    if (param.name.matches("^(?!productId$|entityId$|tenantId$).*")) {
+                    if (NAMING.isWrapperParameter(param.name)) {
+                        if (result.length() > 0) {
+                            result.append(", ");
+                        }
                         if (param.type != null && param.type.equalsIgnoreCase("file")) {
-                            result.append("File file, ");
+                            result.append("File file");
                         } else if (param.in.equalsIgnoreCase("body")) {
-                            result.append("Object body, ");
+                            result.append("Object body");
                         } else {
-                            result.append("String " + param.name + ", ");
+                            result.append("String ");
+                            appendWithoutQuotes(result, param.name);
                         }
                     }
                 });
-        return result.toString().replaceAll(", $", "").replaceAll("\"", "");
+        return result.toString();
+    }
+
+    // "String id, File file, Object body" -> "id, file, body"
+    private String generateArgumentNames(String methodArguments) {
+        StringBuilder result = new StringBuilder();
+        for (String argument : methodArguments.split(", ")) {
+            if (result.length() > 0) {
+                result.append(", ");
+            }
+            result.append(argument, argument.lastIndexOf(' ') + 1, argument.length());
+        }
+        return result.toString();
+    }
+
+    private String generateShardClassName(String servicePath, String shard) {
+        String serviceName = generateClassName(servicePath);
+        if (flavour == Flavour.LOAD_TEST) {
+            return shard.isEmpty()
+                    ? LOAD_TEST_CLASS_NAME_TEMPLATE.render(serviceName)
+                    : LOAD_TEST_SHARD_CLASS_NAME_TEMPLATE.render(serviceName, shard);
+        }
+        return shard.isEmpty()
+                ? CLASS_NAME_TEMPLATE.render(serviceName)
+                : SHARD_CLASS_NAME_TEMPLATE.render(serviceName, shard);
+    }
+
+    private void appendWithoutQuotes(StringBuilder result, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) != '"') {
+                result.append(value.charAt(i));
+            }
+        }
     }
 
     private String generateClassName(String path) {
-        String[] arr = path.toLowerCase().replaceAll("/", "").trim().split("[^A-z]+");
-        return capitalizeStringArrToString(arr);
+        return NAMING.className(path);
     }
 
     private String generateRestParamsMethodChain(List<Parameter> params) {
         StringBuilder result = new StringBuilder();
         params
                 .stream()
-                .filter(p -> p.name.matches("^(?!productId$|entityId$|tenantId$).*"))
+                .filter(p -> NAMING.isWrapperParameter(p.name))
                 .forEach(
                         p -> {
                             // if body param, add body param method
@@ -310,20 +1217,21 @@ public class ServiceWrapperGenerator {
                             }
                             // handle queryParam
                             else if (p.in.equalsIgnoreCase("query")) {
-                                result.append(String.format(QUERY_PARAM_TEMPLATE, p.name, p.name));
+                                QUERY_PARAM_TEMPLATE.appendTo(result, p.name, p.name);
                             }
                             // handle formData
                             else if (p.in.equalsIgnoreCase("formData")) {
+                                // files are passed as the method's "file" argument, whatever their name
                                 if (p.type.equalsIgnoreCase("file")) {
-                                    result.append(String.format(FORM_DATA_TEMPLATE_, p.name, p.name, ", mime"));
+                                    FORM_DATA_TEMPLATE_.appendTo(result, p.name, generateArgumentName(p), ", mime");
                                 } else {
-                                    result.append(String.format(FORM_DATA_TEMPLATE_, p.name, p.name, ""));
+                                    FORM_DATA_TEMPLATE_.appendTo(result, p.name, generateArgumentName(p), "");
                                 }
 
                             }
                             // else treat param as a path param
                             else {
-                                result.append(String.format(PATH_PARAM_TEMPLATE, p.name, p.name));
+                                PATH_PARAM_TEMPLATE.appendTo(result, p.name, p.name);
                             }
                         });
         return result.toString();
@@ -331,9 +1239,15 @@ public class ServiceWrapperGenerator {
 
     private String generateBeforeReturnStatementCode(ApiCallMethod apiCallMethod) {
         String result = "";
-        if (apiCallMethod.consumes.contains("multipart")) {
-            result = String.format(BEFORE_RETURN_STATEMENT, GET_FILE_MIME_TYPE);
+        if (isMultipart(apiCallMethod)) {
+            result =
+                    BEFORE_RETURN_STATEMENT.render(
+                            flavour == Flavour.SHARED_SPECS ? GET_CACHED_FILE_MIME_TYPE : GET_FILE_MIME_TYPE);
         }
         return result;
     }
+
+    private boolean isMultipart(ApiCallMethod apiCallMethod) {
+        return apiCallMethod.consumes.contains("multipart");
+    }
 }
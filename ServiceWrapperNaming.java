@@ -0,0 +1,202 @@
+package com.company.test.utilities.classgenerator;
+
+import com.google.common.base.CaseFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Derives the names used in service wrapper classes from swagger values. Every method that
+ * replaced a regex based one produces exactly what it did, but scans its input once instead of
+ * compiling and running a chain of patterns. Names derived from operationIds and controller tags
+ * are memoized since the same values come up again and again across operations and runs.
+ */
+public class ServiceWrapperNaming {
+
+    // parameters every wrapper gets from the actor's ability instead of a method argument
+    private static final Set<String> IMPLICIT_PARAMETERS = Set.of("productId", "entityId", "tenantId");
+
+    private static final String[][] METHOD_NAME_VERBS = {
+        {"GET", "Get"}, {"PUT", "Put"}, {"POST", "Post"}, {"DELETE", "Delete"}, {"PATCH", "Patch"}
+    };
+
+    // springfox suffixes duplicate operationIds with _1, _2, ...
+    private static final Pattern DUPLICATE_OPERATION_SUFFIX = Pattern.compile("_.$");
+
+    // length of the "rest-controller" suffix on controller tags, the hyphen in front of it is
+    // left for CaseFormat to drop
+    private static final int CONTROLLER_SUFFIX_LENGTH = 15;
+
+    // only used for the odd path containing line terminators, which "." does not match
+    private static final Pattern UP_TO_ENTITY_ID = Pattern.compile("^.*\\{entityId}/");
+    private static final Pattern QUERY_TEMPLATE = Pattern.compile("\\{\\?.*");
+
+    private static final String ENDPOINT_SUFFIX = "ENDPOINT";
+    private static final String REQUEST_SPEC_SUFFIX = "SPEC";
+
+    private static final String ENTITY_ID_SEGMENT = "{entityId}/";
+    private static final String QUERY_TEMPLATE_START = "{?";
+
+    private final Map<String, String> endpointValueConstantNames = new ConcurrentHashMap<>();
+    private final Map<String, String> controllerNames = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, String>> methodNames = new ConcurrentHashMap<>();
+
+    // "items/{itemId}/image" -> ITEMS_ITEM_ID_IMAGE_ENDPOINT, shared by every verb of the path
+    public String endpointValueConstantName(String endpointValue) {
+        return endpointValueConstantNames.computeIfAbsent(
+                endpointValue, value -> scanConstantName(value, ENDPOINT_SUFFIX));
+    }
+
+    // multipart/form-data -> MULTIPART_FORM_DATA_SPEC
+    public String requestSpecConstantName(String contentType) {
+        return scanConstantName(contentType, REQUEST_SPEC_SUFFIX);
+    }
+
+    // getItemsUsingGET with item-rest-controller -> getItemsUsingGet
+    public String methodName(String operationId, String controller) {
+        return methodNames
+                .computeIfAbsent(controller, c -> new ConcurrentHashMap<>())
+                .computeIfAbsent(operationId, id -> scanMethodName(id, controller));
+    }
+
+    // item-rest-controller -> item
+    public String controllerName(String controller) {
+        return controllerNames.computeIfAbsent(controller, this::scanControllerName);
+    }
+
+    // /v1/{entityId}/items/filter{?name} -> "items/filter", quotes included
+    public String endpointConstantValue(String path) {
+        if (path.contains("filter")) {
+            path = path.substring(0, path.lastIndexOf('{'));
+        }
+        if (containsLineTerminator(path)) {
+            String value = UP_TO_ENTITY_ID.matcher(path).replaceAll("");
+            return "\"" + QUERY_TEMPLATE.matcher(value).replaceAll("") + "\"";
+        }
+        int entityId = path.lastIndexOf(ENTITY_ID_SEGMENT);
+        int start = entityId < 0 ? 0 : entityId + ENTITY_ID_SEGMENT.length();
+        int queryTemplate = path.indexOf(QUERY_TEMPLATE_START, start);
+        int end = queryTemplate < 0 ? path.length() : queryTemplate;
+        return new StringBuilder(end - start + 2)
+                .append('"')
+                .append(path, start, end)
+                .append('"')
+                .toString();
+    }
+
+    // /product-catalog -> productcatalog
+    public String packageName(String basePath) {
+        StringBuilder result = new StringBuilder(basePath.length());
+        for (int i = 0; i < basePath.length(); i++) {
+            char c = basePath.charAt(i);
+            // A-z deliberately includes [ \ ] ^ _ and ` like the original character class did
+            if (c >= 'A' && c <= 'z') {
+                result.append(c);
+            }
+        }
+        return result.toString().toLowerCase();
+    }
+
+    // /product-catalog -> ProductCatalog
+    public String className(String basePath) {
+        String path = basePath.toLowerCase();
+        StringBuilder result = new StringBuilder(path.length());
+        boolean startOfWord = true;
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c == '/') {
+                // slashes are dropped before splitting, so they join words rather than separate them
+                continue;
+            }
+            if (c >= 'A' && c <= 'z') {
+                result.append(startOfWord ? Character.toUpperCase(c) : c);
+                startOfWord = false;
+            } else {
+                startOfWord = true;
+            }
+        }
+        return result.toString();
+    }
+
+    public boolean isWrapperParameter(String name) {
+        return !IMPLICIT_PARAMETERS.contains(name) && !containsLineTerminator(name);
+    }
+
+    private String scanConstantName(String value, String suffix) {
+        StringBuilder result = new StringBuilder(value.length() + suffix.length() + 8);
+        boolean wordBreak = false;
+        char previous = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 128 && Character.isLetterOrDigit(c)) {
+                // itemId -> ITEM_ID
+                if (Character.isUpperCase(c) && (Character.isLowerCase(previous) || Character.isDigit(previous))) {
+                    wordBreak = true;
+                }
+                if (wordBreak && result.length() > 0) {
+                    result.append('_');
+                }
+                result.append(Character.toUpperCase(c));
+                wordBreak = false;
+            } else {
+                // slashes, braces, dashes, dots and quotes only separate words
+                wordBreak = true;
+            }
+            previous = c;
+        }
+        if (result.length() > 0 && Character.isDigit(result.charAt(0))) {
+            result.insert(0, '_');
+        }
+        return result.append(result.length() > 0 ? "_" + suffix : suffix).toString();
+    }
+
+    private String scanMethodName(String operationId, String controller) {
+        String controllerName = controllerName(controller);
+        if (!operationId.toLowerCase().contains(controllerName.toLowerCase())) {
+            // change casing of first letter of operationId (get --> Get)
+            operationId = operationId.substring(0, 1).toUpperCase() + operationId.substring(1);
+            // add back in the controller to the beginning of the method
+            operationId = controllerName + operationId;
+        }
+
+        StringBuilder result = new StringBuilder(operationId.length());
+        int i = 0;
+        while (i < operationId.length()) {
+            String[] verb = verbAt(operationId, i);
+            if (verb != null) {
+                result.append(verb[1]);
+                i += verb[0].length();
+            } else {
+                result.append(operationId.charAt(i++));
+            }
+        }
+
+        String name = result.toString();
+        return name.indexOf('_') < 0 ? name : DUPLICATE_OPERATION_SUFFIX.matcher(name).replaceAll("");
+    }
+
+    private String scanControllerName(String controller) {
+        return CaseFormat.LOWER_HYPHEN.to(
+                CaseFormat.LOWER_CAMEL, controller.substring(0, controller.length() - CONTROLLER_SUFFIX_LENGTH));
+    }
+
+    private String[] verbAt(String value, int index) {
+        for (String[] verb : METHOD_NAME_VERBS) {
+            if (value.startsWith(verb[0], index)) {
+                return verb;
+            }
+        }
+        return null;
+    }
+
+    private boolean containsLineTerminator(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,254 @@
+package com.company.test.utilities.classgenerator;
+
+import com.company.test.utilities.classgenerator.RunMetrics.Counter;
+import com.company.test.utilities.classgenerator.RunMetrics.Phase;
+import com.company.test.utilities.classgenerator.RunMetrics.PhaseTimer;
+import com.company.test.utilities.classgenerator.RunMetrics.ServiceMetrics;
+import com.company.test.utilities.classgenerator.ServiceWrapperGenerator.ApiCallMethod;
+import com.company.test.utilities.classgenerator.ServiceWrapperGenerator.Path;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates the wrapper classes of one spec in four overlapping stages, each on its own thread:
+ * parsing paths, deriving their names and method chains, rendering them into ClassBuilders and
+ * writing finished classes. Bounded queues between the stages hold back whichever stage runs
+ * ahead, so the spec is never held whole, only the queued paths and the classes being rendered.
+ * Every stage handles paths in spec order, so the output is the same as generating sequentially.
+ */
+public class ServiceWrapperPipeline {
+
+    private static final Path END_OF_PATHS = new Path();
+    private static final ClassBuilder END_OF_CLASSES = new ClassBuilder("", "");
+    private static final AtomicInteger PIPELINES = new AtomicInteger();
+
+    private final ServiceWrapperGenerator generator;
+    private final ServiceMetrics metrics;
+    private final BlockingQueue<Path> parsed;
+    private final BlockingQueue<Path> modelled;
+    private final BlockingQueue<ClassBuilder> rendered;
+    // null until the spec's basePath has been read, completed with null when it has none
+    private final CompletableFuture<String> servicePath = new CompletableFuture<>();
+    // only collected when the generated classes are verified
+    private final Map<String, String> memberOrigins;
+    // receives every completed path, null when no snapshot is taken
+    private final ModelSnapshot.Writer snapshot;
+
+    // render stage state
+    private final Map<String, ClassBuilder> openShards = new LinkedHashMap<>();
+    private final Map<String, List<ApiCallMethod>> shardMethods = new LinkedHashMap<>();
+    private String currentShard;
+    private int index;
+
+    // capacity is the number of paths or classes a stage may run ahead of the next one
+    public ServiceWrapperPipeline(
+            ServiceWrapperGenerator generator,
+            ServiceMetrics metrics,
+            boolean collectMemberOrigins,
+            int capacity) {
+        this(generator, metrics, collectMemberOrigins, capacity, null);
+    }
+
+    public ServiceWrapperPipeline(
+            ServiceWrapperGenerator generator,
+            ServiceMetrics metrics,
+            boolean collectMemberOrigins,
+            int capacity,
+            ModelSnapshot.Writer snapshot) {
+        this.generator = generator;
+        this.metrics = metrics;
+        this.parsed = new ArrayBlockingQueue<>(capacity);
+        this.modelled = new ArrayBlockingQueue<>(capacity);
+        this.rendered = new ArrayBlockingQueue<>(capacity);
+        this.memberOrigins = collectMemberOrigins ? new ConcurrentHashMap<>() : null;
+        this.snapshot = snapshot;
+    }
+
+    // runs every stage to completion, the first failing stage cancels the others
+    public void run(Reader spec) throws IOException {
+        int pipeline = PIPELINES.incrementAndGet();
+        AtomicInteger stageCount = new AtomicInteger();
+        ExecutorService executor =
+                Executors.newFixedThreadPool(
+                        4,
+                        runnable -> {
+                            Thread thread =
+                                    new Thread(
+                                            runnable,
+                                            "pipeline-" + pipeline + "-stage-" + stageCount.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+        CompletionService<Void> stages = new ExecutorCompletionService<>(executor);
+        try {
+            stages.submit(() -> parse(spec));
+            stages.submit(this::model);
+            stages.submit(this::render);
+            stages.submit(this::write);
+            for (int i = 0; i < 4; i++) {
+                stages.take().get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("generation interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Void parse(Reader spec) throws IOException, InterruptedException {
+        try (PhaseTimer timer = metrics.time(Phase.PARSE)) {
+            SwaggerSpecParser.parse(
+                    spec,
+                    new SwaggerSpecParser.SpecHandler() {
+                        @Override
+                        public void basePath(String basePath) {
+                            servicePath.complete(basePath);
+                            if (snapshot != null) {
+                                snapshot.setBasePath(basePath);
+                            }
+                        }
+
+                        @Override
+                        public void path(Path path) throws IOException {
+                            try {
+                                parsed.put(path);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                throw new InterruptedIOException("generation cancelled");
+                            }
+                            timer.count(1);
+                        }
+                    });
+        }
+        servicePath.complete(null);
+        parsed.put(END_OF_PATHS);
+        return null;
+    }
+
+    private Void model() throws IOException, InterruptedException {
+        // one endpoint constant per distinct endpoint value, shared by every verb using it
+        Map<String, String> endpointNames = new HashMap<>();
+        Set<String> usedNames = new HashSet<>();
+        try (PhaseTimer timer = metrics.time(Phase.MODEL)) {
+            for (Path p = parsed.take(); p != END_OF_PATHS; p = parsed.take()) {
+                generator.completePath(p, endpointNames, usedNames);
+                metrics.add(Counter.OPERATIONS, p.apiCallMethods.size());
+                p.apiCallMethods.forEach(ac -> metrics.add(Counter.PARAMETERS, ac.parameters.size()));
+                timer.count(p.apiCallMethods.size());
+                if (snapshot != null) {
+                    snapshot.write(p);
+                }
+                modelled.put(p);
+            }
+        }
+        modelled.put(END_OF_PATHS);
+        return null;
+    }
+
+    private Void render() throws InterruptedException {
+        // paths only arrive ahead of the basePath in specs that list it after the paths
+        List<Path> pending = new ArrayList<>();
+        try (PhaseTimer timer = metrics.time(Phase.RENDER)) {
+            for (Path p = modelled.take(); p != END_OF_PATHS; p = modelled.take()) {
+                pending.add(p);
+                if (servicePath.isDone()) {
+                    for (Path ready : pending) {
+                        renderPath(ready, timer);
+                    }
+                    pending.clear();
+                }
+            }
+            for (Path ready : pending) {
+                renderPath(ready, timer);
+            }
+            for (String shard : new ArrayList<>(openShards.keySet())) {
+                finishShard(shard, timer);
+            }
+            if (generator.getSharding().facade) {
+                rendered.put(generator.buildFacadeClass(servicePath.join(), shardMethods));
+                metrics.add(Counter.CLASSES, 1);
+                timer.count(1);
+            }
+        }
+        rendered.put(END_OF_CLASSES);
+        return null;
+    }
+
+    private void renderPath(Path p, PhaseTimer timer) throws InterruptedException {
+        for (ApiCallMethod ac : p.apiCallMethods) {
+            String shard = generator.generateShardName(ac, index++);
+            // shards of a fixed number of operations are complete as soon as the next one starts
+            if (generator.getSharding().operationsPerShard > 0
+                    && currentShard != null
+                    && !shard.equals(currentShard)) {
+                finishShard(currentShard, timer);
+            }
+            currentShard = shard;
+            ClassBuilder classBuilder =
+                    openShards.computeIfAbsent(
+                            shard, s -> generator.newServiceWrapperClass(servicePath.join(), s));
+            generator.addApiCallMethod(classBuilder, p, ac);
+            if (generator.getSharding().facade) {
+                shardMethods.computeIfAbsent(shard, s -> new ArrayList<>()).add(ac);
+            }
+            if (memberOrigins != null) {
+                generator.addMemberOrigins(memberOrigins, ac);
+            }
+        }
+    }
+
+    private void finishShard(String shard, PhaseTimer timer) throws InterruptedException {
+        ClassBuilder classBuilder = openShards.remove(shard);
+        if (classBuilder != null) {
+            classBuilder.removeUnusedImports();
+            rendered.put(classBuilder);
+            metrics.add(Counter.CLASSES, 1);
+            timer.count(1);
+        }
+    }
+
+    private Void write() throws InterruptedException {
+        String directory = null;
+        try (PhaseTimer timer = metrics.time(Phase.WRITE)) {
+            for (ClassBuilder c = rendered.take(); c != END_OF_CLASSES; c = rendered.take()) {
+                if (directory == null) {
+                    directory = generator.generateOutputDirectory(servicePath.join());
+                }
+                generator.writeClass(c, directory, memberOrigins);
+                timer.count(1);
+            }
+        }
+        return null;
+    }
+}
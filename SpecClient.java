@@ -0,0 +1,180 @@
+package com.company.test.utilities.classgenerator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Fetches swagger specs over a single shared HTTP/2 client, so connections are kept alive and
+ * reused across services. Bodies are requested compressed and handed out as a stream that is
+ * decompressed as it arrives, for the parser to read while the rest is still downloading.
+ * Connection failures, timeouts, 429s and 5xx responses are retried with exponential backoff.
+ */
+public class SpecClient {
+
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+    public static final int DEFAULT_RETRIES = 3;
+
+    private static final long INITIAL_BACKOFF_MILLIS = 200;
+    private static final long MAX_BACKOFF_MILLIS = 5_000;
+
+    public static class SpecResponse {
+        public final int statusCode;
+        public final String etag;
+        public final String lastModified;
+        // decompressed, read it once and close it
+        public final InputStream body;
+
+        SpecResponse(int statusCode, String etag, String lastModified, InputStream body) {
+            this.statusCode = statusCode;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.body = body;
+        }
+    }
+
+    private final HttpClient client;
+    private final Duration timeout;
+    private final int retries;
+
+    public SpecClient() {
+        this(DEFAULT_TIMEOUT, DEFAULT_RETRIES);
+    }
+
+    // timeout applies to connecting and to waiting for the response headers, not to the whole body
+    public SpecClient(Duration timeout, int retries) {
+        if (retries < 0) {
+            throw new IllegalArgumentException("retries must not be negative but was " + retries);
+        }
+        this.client =
+                HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_2)
+                        .connectTimeout(timeout)
+                        .followRedirects(HttpClient.Redirect.NORMAL)
+                        .build();
+        this.timeout = timeout;
+        this.retries = retries;
+    }
+
+    public SpecResponse get(String url, Map<String, String> headers) throws IOException {
+        try {
+            return getAsync(url, headers).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("could not fetch " + url, cause);
+        }
+    }
+
+    // completes as soon as the headers are in, the body streams in while it is being read
+    public CompletableFuture<SpecResponse> getAsync(String url, Map<String, String> headers) {
+        HttpRequest.Builder request =
+                HttpRequest.newBuilder(URI.create(url))
+                        .timeout(timeout)
+                        .header("Accept", "application/json")
+                        .header("Accept-Encoding", "gzip, deflate")
+                        .GET();
+        headers.forEach(request::header);
+        return send(request.build(), 0);
+    }
+
+    private CompletableFuture<SpecResponse> send(HttpRequest request, int attempt) {
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+                .handle(
+                        (response, failure) -> {
+                            Throwable cause =
+                                    failure instanceof CompletionException ? failure.getCause() : failure;
+                            boolean retryable =
+                                    cause instanceof IOException
+                                            || (cause == null && isRetryable(response.statusCode()));
+                            if (!retryable || attempt >= retries) {
+                                return cause != null
+                                        ? CompletableFuture.<SpecResponse>failedFuture(cause)
+                                        : CompletableFuture.completedFuture(toSpecResponse(response));
+                            }
+                            if (response != null) {
+                                discard(response.body());
+                            }
+                            return CompletableFuture.runAsync(
+                                            () -> {},
+                                            CompletableFuture.delayedExecutor(
+                                                    backoffMillis(attempt), TimeUnit.MILLISECONDS))
+                                    .thenCompose(ignored -> send(request, attempt + 1));
+                        })
+                .thenCompose(next -> next);
+    }
+
+    private static boolean isRetryable(int statusCode) {
+        return statusCode == 429 || statusCode >= 500;
+    }
+
+    // doubles with every attempt, with jitter so services failing together do not retry together
+    private static long backoffMillis(int attempt) {
+        long backoff = Math.min(MAX_BACKOFF_MILLIS, INITIAL_BACKOFF_MILLIS << Math.min(attempt, 10));
+        return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+    }
+
+    private static SpecResponse toSpecResponse(HttpResponse<InputStream> response) {
+        try {
+            return new SpecResponse(
+                    response.statusCode(),
+                    response.headers().firstValue("ETag").orElse(null),
+                    response.headers().firstValue("Last-Modified").orElse(null),
+                    decompress(
+                            response.body(),
+                            response.headers().firstValue("Content-Encoding").orElse("")));
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private static InputStream decompress(InputStream body, String contentEncoding) throws IOException {
+        switch (contentEncoding.trim().toLowerCase()) {
+            case "gzip":
+            case "x-gzip":
+                PushbackInputStream gzipped = new PushbackInputStream(body);
+                return isEmpty(gzipped) ? gzipped : new GZIPInputStream(gzipped);
+            case "deflate":
+                PushbackInputStream deflated = new PushbackInputStream(body);
+                return isEmpty(deflated) ? deflated : new InflaterInputStream(deflated);
+            default:
+                return body;
+        }
+    }
+
+    // 304s and errors can carry the Content-Encoding of the resource without any body to decompress
+    private static boolean isEmpty(PushbackInputStream body) throws IOException {
+        int first = body.read();
+        if (first < 0) {
+            return true;
+        }
+        body.unread(first);
+        return false;
+    }
+
+    private static void discard(InputStream body) {
+        try (InputStream in = body) {
+            in.transferTo(OutputStream.nullOutputStream());
+        } catch (IOException e) {
+            // the connection is dropped rather than reused
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.company.test.utilities.classgenerator;
+
+import com.company.test.utilities.classgenerator.ServiceWrapperGenerator.ApiCallMethod;
+import com.company.test.utilities.classgenerator.SwaggerSpecParser.SwaggerSpec;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Long running watch mode for the service wrapper generator. Every spec keeps its ClassBuilder
+ * and the operations it was built from, and when the spec changes only the operations that were
+ * added, removed or changed are re-rendered before the class is written again. Local spec files
+ * are watched through a WatchService, remote specs are polled through the spec cache.
+ */
+public class SpecWatcher {
+
+    // editors often save a file in several steps, so events arriving this close together are merged
+    private static final long SETTLE_MILLIS = 50;
+
+    private static class Operation {
+        final ServiceWrapperGenerator.Path path;
+        final ApiCallMethod apiCallMethod;
+        // the class the operation is generated into, empty when not sharding
+        final String shard;
+
+        Operation(ServiceWrapperGenerator.Path path, ApiCallMethod apiCallMethod, String shard) {
+            this.path = path;
+            this.apiCallMethod = apiCallMethod;
+            this.shard = shard;
+        }
+
+        // same constant and method, so nothing in the class needs to change
+        boolean rendersSameAs(Operation other) {
+            ApiCallMethod a = apiCallMethod;
+            ApiCallMethod b = other.apiCallMethod;
+            return Objects.equals(path.endpoint, other.path.endpoint)
+                    && Objects.equals(a.endpointName, b.endpointName)
+                    && Objects.equals(a.methodName, b.methodName)
+                    && Objects.equals(a.methodArguments, b.methodArguments)
+                    && Objects.equals(a.restParamMethodChain, b.restParamMethodChain)
+                    && Objects.equals(a.swaggerPath, b.swaggerPath)
+                    && Objects.equals(a.restVerb, b.restVerb)
+                    && Objects.equals(a.summary, b.summary)
+                    && Objects.equals(a.consumes, b.consumes);
+        }
+
+        String signature() {
+            return ClassBuilder.MethodMember.signature(
+                    apiCallMethod.methodName, apiCallMethod.methodArguments);
+        }
+
+        // whether the constant and method are stored under the same keys in the same ClassBuilder
+        boolean sameMembersAs(Operation other) {
+            return shard.equals(other.shard)
+                    && Objects.equals(apiCallMethod.endpointName, other.apiCallMethod.endpointName)
+                    // load clients take the implicit path templates as arguments too
+                    && Objects.equals(apiCallMethod.swaggerPath, other.apiCallMethod.swaggerPath)
+                    && signature().equals(other.signature());
+        }
+    }
+
+    private static class WatchedSpec {
+        String basePath;
+        // keyed by shard, a single entry keyed by "" when not sharding
+        Map<String, ClassBuilder> classBuilders = new LinkedHashMap<>();
+        String outputDirectory;
+        // keyed by operationId, in spec order
+        Map<String, Operation> operations = new LinkedHashMap<>();
+    }
+
+    private final ServiceWrapperGenerator generator;
+    private final GenerationManifest manifest;
+    private final Path stagingParent;
+    private final BatchClassWriter.FsyncPolicy fsyncPolicy;
+
+    private final Map<String, WatchedSpec> specs = new HashMap<>();
+
+    public SpecWatcher(
+            ServiceWrapperGenerator generator,
+            GenerationManifest manifest,
+            Path stagingParent,
+            BatchClassWriter.FsyncPolicy fsyncPolicy) {
+        this.generator = generator;
+        this.manifest = manifest;
+        this.stagingParent = stagingParent;
+        this.fsyncPolicy = fsyncPolicy;
+    }
+
+    // generates every file once and then regenerates whichever of them changes, until interrupted
+    public void watchFiles(List<Path> specFiles) throws IOException, InterruptedException {
+        Set<Path> watched = new LinkedHashSet<>();
+        specFiles.forEach(f -> watched.add(f.toAbsolutePath().normalize()));
+
+        try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+            Set<Path> directories = new LinkedHashSet<>();
+            watched.forEach(f -> directories.add(f.getParent()));
+            for (Path directory : directories) {
+                // CREATE as well since many editors save by replacing the file
+                directory.register(
+                        watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY);
+            }
+            watched.forEach(this::updateFromFile);
+
+            while (true) {
+                Set<Path> changed = new LinkedHashSet<>();
+                collectChanges(watchService.take(), watched, changed);
+                WatchKey next;
+                while ((next = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    collectChanges(next, watched, changed);
+                }
+                changed.forEach(this::updateFromFile);
+            }
+        }
+    }
+
+    // revalidates every service's spec each interval and regenerates the ones that changed
+    public void pollServices(List<String> services, SwaggerSpecCache specCache, Duration interval)
+            throws InterruptedException {
+        Map<String, String> previousSpecs = new HashMap<>();
+        while (true) {
+            for (String service : services) {
+                try {
+                    String json = specCache.fetch(service, service);
+                    // a 304 hands back the cached body, which needs no parsing at all
+                    if (!json.equals(previousSpecs.get(service))) {
+                        update(service, SwaggerSpecParser.parse(json));
+                        previousSpecs.put(service, json);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    System.err.println(service + ": " + e.getMessage());
+                }
+            }
+            Thread.sleep(interval.toMillis());
+        }
+    }
+
+    private void collectChanges(WatchKey key, Set<Path> watched, Set<Path> changed) {
+        Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // events were lost, so anything in the directory may have changed
+                watched.stream().filter(f -> f.getParent().equals(directory)).forEach(changed::add);
+            } else {
+                Path file = directory.resolve((Path) event.context());
+                if (watched.contains(file)) {
+                    changed.add(file);
+                }
+            }
+        }
+        key.reset();
+    }
+
+    private void updateFromFile(Path specFile) {
+        try (Reader reader = Files.newBufferedReader(specFile, StandardCharsets.UTF_8)) {
+            update(specFile.toString(), SwaggerSpecParser.parse(reader));
+        } catch (IOException | RuntimeException e) {
+            // usually a half written file, the next save will bring it back
+            System.err.println(specFile + ": " + e.getMessage());
+        }
+    }
+
+    // applies the operations that changed since the previous version of the spec and writes the
+    // classes if anything did
+    public synchronized void update(String source, SwaggerSpec spec) throws IOException {
+        long start = System.nanoTime();
+        // in spec order, shards and colliding endpoint names would differ from a regular run's
+        if (generator.isCanonical()) {
+            ServiceWrapperGenerator.sortCanonically(spec);
+        }
+        generator.completeSpec(spec);
+        boolean sharding = generator.getSharding().isEnabled();
+
+        WatchedSpec watchedSpec = specs.get(source);
+        if (watchedSpec == null || !Objects.equals(watchedSpec.basePath, spec.basePath)) {
+            // a new service path means different classes altogether
+            watchedSpec = new WatchedSpec();
+            watchedSpec.basePath = spec.basePath;
+            watchedSpec.outputDirectory = generator.generateOutputDirectory(spec.basePath);
+            if (!sharding) {
+                watchedSpec.classBuilders.put("", generator.newServiceWrapperClass(spec.basePath));
+            }
+            specs.put(source, watchedSpec);
+        }
+
+        Map<String, Operation> operations = new LinkedHashMap<>();
+        int index = 0;
+        for (ServiceWrapperGenerator.Path p : spec.paths) {
+            for (ApiCallMethod ac : p.apiCallMethods) {
+                String shard = generator.generateShardName(ac, index++);
+                operations.put(ac.operationId, new Operation(p, ac, shard));
+            }
+        }
+
+        int added = 0;
+        int changed = 0;
+        int removed = 0;
+        Map<String, ClassBuilder> classBuilders = watchedSpec.classBuilders;
+        Set<String> touchedShards = new HashSet<>();
+        // operations whose duplicate operationIds collapse into one method share members, so
+        // whatever gets removed is put back for every operation still using it
+        Set<String> removedMembers = new HashSet<>();
+        for (Map.Entry<String, Operation> entry : watchedSpec.operations.entrySet()) {
+            Operation previous = entry.getValue();
+            Operation current = operations.get(entry.getKey());
+            if (current == null) {
+                removed++;
+            } else if (current.sameMembersAs(previous)) {
+                continue;
+            }
+            // replacing would leave the old member behind under its old key or in its old shard
+            generator.removeApiCallMethod(classBuilders.get(previous.shard), previous.apiCallMethod);
+            removedMembers.add(previous.shard + "#" + previous.apiCallMethod.endpointName);
+            removedMembers.add(previous.shard + "#" + previous.signature());
+            touchedShards.add(previous.shard);
+        }
+        for (Map.Entry<String, Operation> entry : operations.entrySet()) {
+            Operation current = entry.getValue();
+            Operation previous = watchedSpec.operations.get(entry.getKey());
+            if (previous == null) {
+                added++;
+            } else if (!current.rendersSameAs(previous)) {
+                changed++;
+            } else if (current.shard.equals(previous.shard)
+                    && !removedMembers.contains(current.shard + "#" + current.apiCallMethod.endpointName)
+                    && !removedMembers.contains(current.shard + "#" + current.signature())) {
+                continue;
+            }
+            ClassBuilder classBuilder =
+                    classBuilders.computeIfAbsent(
+                            current.shard, s -> generator.newServiceWrapperClass(spec.basePath, s));
+            generator.addApiCallMethod(classBuilder, current.path, current.apiCallMethod);
+            touchedShards.add(current.shard);
+        }
+        watchedSpec.operations = operations;
+        if (touchedShards.isEmpty()) {
+            return;
+        }
+
+        Map<String, List<ApiCallMethod>> shardMethods = new LinkedHashMap<>();
+        operations.values().forEach(
+                o -> shardMethods.computeIfAbsent(o.shard, s -> new ArrayList<>()).add(o.apiCallMethod));
+        for (String shard : touchedShards) {
+            if (sharding && !shardMethods.containsKey(shard)) {
+                // its file is removed as stale when the remaining classes are committed
+                classBuilders.remove(shard);
+            } else {
+                generator.refreshSharedMembers(
+                        classBuilders.get(shard), shardMethods.getOrDefault(shard, List.of()));
+            }
+        }
+
+        List<ClassBuilder> toWrite = new ArrayList<>(classBuilders.values());
+        if (generator.getSharding().facade) {
+            toWrite.add(generator.buildFacadeClass(spec.basePath, shardMethods));
+        }
+        // every class is staged so none of them looks stale, unchanged ones are skipped by hash
+        int written = 0;
+        BatchClassWriter writer = new BatchClassWriter(manifest, stagingParent, fsyncPolicy);
+        try {
+            for (ClassBuilder classBuilder : toWrite) {
+                if (writer.stage(classBuilder, watchedSpec.outputDirectory) > 0) {
+                    written++;
+                }
+            }
+            writer.commit();
+            manifest.save();
+        } catch (IOException | RuntimeException e) {
+            writer.abort();
+            // the classes on disk no longer match, so the next change rebuilds them from scratch
+            specs.remove(source);
+            throw e;
+        }
+        System.out.printf(
+                "%s: %d added, %d changed, %d removed, %d class(es) regenerated in %d ms%n",
+                source,
+                added,
+                changed,
+                removed,
+                written,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+}
@@ -0,0 +1,300 @@
+package com.company.test.utilities.classgenerator;
+
+import java.io.FilterInputStream;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Disk cache of swagger specs keyed by service and group. Each entry holds the spec body and the
+ * ETag / Last-Modified validators it was served with, so later fetches are conditional requests
+ * that reuse the cached body on a 304. In offline mode nothing is requested at all. Downloads
+ * are streamed to the parser and into the cache at the same time.
+ */
+public class SwaggerSpecCache {
+
+    private static final String BODY_EXTENSION = ".json";
+    private static final String VALIDATORS_EXTENSION = ".properties";
+    private static final String ETAG = "ETag";
+    private static final String LAST_MODIFIED = "Last-Modified";
+    private static final String SHA_256 = "SHA-256";
+
+    private final Path directory;
+    private final String urlTemplate;
+    private final boolean offline;
+    private final SpecClient client;
+
+    private final AtomicInteger downloadedCount = new AtomicInteger();
+    private final AtomicInteger revalidatedCount = new AtomicInteger();
+    private final AtomicInteger offlineCount = new AtomicInteger();
+
+    // urlTemplate is formatted with the service and then the group
+    public SwaggerSpecCache(Path directory, String urlTemplate, boolean offline) {
+        this(directory, urlTemplate, offline, new SpecClient());
+    }
+
+    public SwaggerSpecCache(Path directory, String urlTemplate, boolean offline, SpecClient client) {
+        this.directory = directory;
+        this.urlTemplate = urlTemplate;
+        this.offline = offline;
+        this.client = client;
+    }
+
+    public String fetch(String service, String group) throws IOException {
+        try (Reader reader = open(service, group)) {
+            StringWriter json = new StringWriter();
+            reader.transferTo(json);
+            return json.toString();
+        }
+    }
+
+    // the spec as a stream for the parser; a download is written to the cache while it is read
+    // and only replaces the cached entry once it has been read to the end and closed
+    public SpecReader open(String service, String group) throws IOException {
+        Path body = entry(service, group, BODY_EXTENSION);
+        Properties validators = readValidators(entry(service, group, VALIDATORS_EXTENSION));
+
+        if (offline) {
+            if (!Files.exists(body)) {
+                throw new IOException(
+                        "no cached spec for " + service + " (" + group + "), run once without --offline first");
+            }
+            offlineCount.incrementAndGet();
+            return openCached(body, validators);
+        }
+
+        String url = String.format(urlTemplate, service, group);
+        Map<String, String> headers = new HashMap<>();
+        if (Files.exists(body)) {
+            if (validators.getProperty(ETAG) != null) {
+                headers.put("If-None-Match", validators.getProperty(ETAG));
+            }
+            if (validators.getProperty(LAST_MODIFIED) != null) {
+                headers.put("If-Modified-Since", validators.getProperty(LAST_MODIFIED));
+            }
+        }
+        SpecClient.SpecResponse response = client.get(url, headers);
+
+        if (response.statusCode == 304 && Files.exists(body)) {
+            response.body.close();
+            revalidatedCount.incrementAndGet();
+            return openCached(body, validators);
+        }
+        if (response.statusCode != 200) {
+            response.body.close();
+            throw new IOException("unexpected status " + response.statusCode + " fetching " + url);
+        }
+
+        Files.createDirectories(directory);
+        Path bodyTemp = Files.createTempFile(directory, service, BODY_EXTENSION + ".tmp");
+        CachingInputStream caching =
+                new CachingInputStream(
+                        response.body,
+                        Files.newOutputStream(bodyTemp),
+                        hash -> {
+                            store(service, group, bodyTemp, response.etag, response.lastModified, hash);
+                            downloadedCount.incrementAndGet();
+                        },
+                        () -> Files.deleteIfExists(bodyTemp));
+        return new SpecReader(new InputStreamReader(caching, StandardCharsets.UTF_8), caching::hash);
+    }
+
+    private SpecReader openCached(Path body, Properties validators) throws IOException {
+        // entries cached before hashes were recorded are hashed on first use
+        String hash = validators.getProperty(SHA_256);
+        String knownHash = hash != null ? hash : sha256(body);
+        return new SpecReader(Files.newBufferedReader(body, StandardCharsets.UTF_8), () -> knownHash);
+    }
+
+    public String summary() {
+        return String.format(
+                "%d spec(s) downloaded, %d revalidated from cache, %d read offline",
+                downloadedCount.get(), revalidatedCount.get(), offlineCount.get());
+    }
+
+    private void store(
+            String service, String group, Path bodyTemp, String etag, String lastModified, String hash)
+            throws IOException {
+        Properties validators = new Properties();
+        if (etag != null) {
+            validators.setProperty(ETAG, etag);
+        }
+        if (lastModified != null) {
+            validators.setProperty(LAST_MODIFIED, lastModified);
+        }
+        validators.setProperty(SHA_256, hash);
+
+        Path validatorsTemp = Files.createTempFile(directory, service, VALIDATORS_EXTENSION + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(validatorsTemp, StandardCharsets.UTF_8)) {
+            validators.store(writer, service + " " + group);
+        }
+
+        // body first, so stale validators can never be paired with a newer body
+        Files.move(
+                bodyTemp, entry(service, group, BODY_EXTENSION), StandardCopyOption.REPLACE_EXISTING);
+        Files.move(
+                validatorsTemp,
+                entry(service, group, VALIDATORS_EXTENSION),
+                StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Properties readValidators(Path path) throws IOException {
+        Properties validators = new Properties();
+        if (Files.exists(path)) {
+            try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                validators.load(reader);
+            }
+        }
+        return validators;
+    }
+
+    // a spec being read along with the SHA-256 of its bytes, which is known right away for local
+    // files and cached specs but only once the stream is closed for downloads
+    public static class SpecReader extends FilterReader {
+        private final Supplier<String> hash;
+
+        SpecReader(Reader in, Supplier<String> hash) {
+            super(in);
+            this.hash = hash;
+        }
+
+        public static SpecReader open(Path file) throws IOException {
+            String hash = sha256(file);
+            return new SpecReader(Files.newBufferedReader(file, StandardCharsets.UTF_8), () -> hash);
+        }
+
+        // null while a download is still being read
+        public String getHash() {
+            return hash.get();
+        }
+    }
+
+    @FunctionalInterface
+    private interface IOAction {
+        void run() throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface CompletionAction {
+        void run(String hash) throws IOException;
+    }
+
+    // copies and hashes everything read into the cache file, which is kept when the stream is
+    // closed after reaching its end and dropped otherwise
+    private static class CachingInputStream extends FilterInputStream {
+        private final OutputStream copy;
+        private final MessageDigest digest = newDigest();
+        private final CompletionAction onComplete;
+        private final IOAction onFailure;
+        private volatile String hash;
+        private boolean closed;
+
+        CachingInputStream(
+                InputStream in, OutputStream copy, CompletionAction onComplete, IOAction onFailure) {
+            super(in);
+            this.copy = copy;
+            this.onComplete = onComplete;
+            this.onFailure = onFailure;
+        }
+
+        String hash() {
+            return hash;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                copy.write(b);
+                digest.update((byte) b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = in.read(buffer, offset, length);
+            if (read > 0) {
+                copy.write(buffer, offset, read);
+                digest.update(buffer, offset, read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // skipped bytes still have to end up in the cache
+            return read(new byte[(int) Math.min(n, 8192)]);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            boolean complete = false;
+            try {
+                // the parser stops at the end of the document, whatever trails it is still cached
+                byte[] buffer = new byte[8192];
+                while (read(buffer, 0, buffer.length) >= 0) {
+                    // draining
+                }
+                complete = true;
+            } finally {
+                try {
+                    in.close();
+                    copy.close();
+                } finally {
+                    if (complete) {
+                        hash = HexFormat.of().formatHex(digest.digest());
+                        onComplete.run(hash);
+                    } else {
+                        onFailure.run();
+                    }
+                }
+            }
+        }
+    }
+
+    static String sha256(Path file) throws IOException {
+        MessageDigest digest = newDigest();
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[8192];
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every JVM has to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Path entry(String service, String group, String extension) {
+        return directory.resolve(service + "." + group + extension);
+    }
+}
@@ -0,0 +1,182 @@
+package com.company.test.utilities.classgenerator;
+
+import com.company.test.utilities.classgenerator.ModelGenerator.Schema;
+import com.company.test.utilities.classgenerator.ServiceWrapperGenerator.ApiCallMethod;
+import com.company.test.utilities.classgenerator.ServiceWrapperGenerator.Parameter;
+import com.company.test.utilities.classgenerator.ServiceWrapperGenerator.Path;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single pass streaming parser that reads a swagger document straight into the generator's
+ * Path, ApiCallMethod and Parameter model. Only the raw swagger values are filled in: the path
+ * key as endpoint, the verb, operationId, first tag, summary, first consumes entry and the
+ * parameters. Everything derived from them is left to the generator. The definitions are read
+ * separately, as Schemas, for the model generator.
+ */
+public class SwaggerSpecParser {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final ObjectReader PARAMETERS_READER =
+            MAPPER.readerFor(new TypeReference<List<Parameter>>() {});
+    private static final ObjectReader DEFINITIONS_READER =
+            MAPPER.readerFor(new TypeReference<LinkedHashMap<String, Schema>>() {});
+
+    public static class SwaggerSpec {
+        public String basePath;
+        public List<Path> paths = new ArrayList<>();
+    }
+
+    public static class ModelSpec {
+        public String basePath;
+        // keyed by definition name, in spec order
+        public Map<String, Schema> definitions = new LinkedHashMap<>();
+    }
+
+    public static SwaggerSpec parse(String json) throws IOException {
+        return parse(new StringReader(json));
+    }
+
+    // receives the spec piece by piece as it is read, so it never has to be held whole
+    public interface SpecHandler {
+        void basePath(String basePath) throws IOException;
+
+        void path(Path path) throws IOException;
+    }
+
+    public static SwaggerSpec parse(Reader reader) throws IOException {
+        SwaggerSpec spec = new SwaggerSpec();
+        parse(
+                reader,
+                new SpecHandler() {
+                    @Override
+                    public void basePath(String basePath) {
+                        spec.basePath = basePath;
+                    }
+
+                    @Override
+                    public void path(Path path) {
+                        spec.paths.add(path);
+                    }
+                });
+        return spec;
+    }
+
+    // hands every path to the handler as soon as it has been read, in document order
+    public static void parse(Reader reader, SpecHandler handler) throws IOException {
+        try (JsonParser parser = MAPPER.getFactory().createParser(reader)) {
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (field.equals("basePath")) {
+                    handler.basePath(parser.getValueAsString());
+                } else if (field.equals("paths") && value == JsonToken.START_OBJECT) {
+                    readPaths(parser, handler);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+    }
+
+    // reads only the basePath and the definitions, the paths are skipped without being parsed
+    public static ModelSpec parseDefinitions(Reader reader) throws IOException {
+        ModelSpec spec = new ModelSpec();
+        try (JsonParser parser = MAPPER.getFactory().createParser(reader)) {
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (field.equals("basePath")) {
+                    spec.basePath = parser.getValueAsString();
+                } else if (field.equals("definitions") && value == JsonToken.START_OBJECT) {
+                    spec.definitions = DEFINITIONS_READER.readValue(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return spec;
+    }
+
+    private static void readPaths(JsonParser parser, SpecHandler handler) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            Path path = new Path();
+            path.endpoint = parser.currentName();
+            path.apiCallMethods = new ArrayList<>();
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String verb = parser.currentName();
+                // path level entries such as shared "parameters" are not operations
+                if (parser.nextToken() == JsonToken.START_OBJECT) {
+                    path.apiCallMethods.add(readApiCallMethod(parser, verb));
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            handler.path(path);
+        }
+    }
+
+    private static ApiCallMethod readApiCallMethod(JsonParser parser, String verb)
+            throws IOException {
+        ApiCallMethod apiCallMethod = new ApiCallMethod();
+        apiCallMethod.restVerb = verb;
+        apiCallMethod.parameters = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "operationId":
+                    apiCallMethod.operationId = parser.getValueAsString();
+                    break;
+                case "summary":
+                    apiCallMethod.summary = parser.getValueAsString();
+                    break;
+                case "tags":
+                    apiCallMethod.controller = readFirstString(parser);
+                    break;
+                case "consumes":
+                    apiCallMethod.consumes = readFirstString(parser);
+                    break;
+                case "parameters":
+                    apiCallMethod.parameters = PARAMETERS_READER.readValue(parser);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return apiCallMethod;
+    }
+
+    private static String readFirstString(JsonParser parser) throws IOException {
+        expect(parser, parser.currentToken(), JsonToken.START_ARRAY);
+        String first = null;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (first == null) {
+                first = parser.getValueAsString();
+            }
+            parser.skipChildren();
+        }
+        return first;
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected)
+            throws IOException {
+        if (actual != expected) {
+            throw new IOException(
+                    "expected " + expected + " but found " + actual + " at " + parser.getCurrentLocation());
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.company.test.utilities.classgenerator;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Writes deterministic springfox style swagger specs of any size, so the generators can be
+ * benchmarked and tried out without a running service. Every path has GET, PUT, POST and DELETE
+ * operations with path, query and body parameters, and every tenth path also gets a multipart
+ * upload operation.
+ *
+ * <p>Usage: SyntheticSwaggerSpec pathCount parametersPerOperation outputFile [basePath]
+ */
+public class SyntheticSwaggerSpec {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final String[] VERBS = {"get", "put", "post", "delete"};
+    private static final int PATHS_PER_CONTROLLER = 50;
+    private static final int MULTIPART_EVERY = 10;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            throw new IllegalArgumentException(
+                    "usage: SyntheticSwaggerSpec pathCount parametersPerOperation outputFile [basePath]");
+        }
+        String basePath = args.length > 3 ? args[3] : "/synthetic-service";
+        try (Writer writer = Files.newBufferedWriter(Paths.get(args[2]), StandardCharsets.UTF_8)) {
+            write(writer, basePath, Integer.parseInt(args[0]), Integer.parseInt(args[1]));
+        }
+    }
+
+    public static String generate(String basePath, int pathCount, int parametersPerOperation) {
+        StringWriter writer = new StringWriter();
+        try {
+            write(writer, basePath, pathCount, parametersPerOperation);
+        } catch (IOException e) {
+            // StringWriter never throws
+            throw new IllegalStateException(e);
+        }
+        return writer.toString();
+    }
+
+    public static void write(Writer writer, String basePath, int pathCount, int parametersPerOperation)
+            throws IOException {
+        try (JsonGenerator json = JSON_FACTORY.createGenerator(writer)) {
+            json.writeStartObject();
+            json.writeStringField("swagger", "2.0");
+            json.writeObjectFieldStart("info");
+            json.writeStringField("title", "Synthetic API");
+            json.writeStringField("version", "1.0");
+            json.writeEndObject();
+            json.writeStringField("host", "localhost");
+            json.writeStringField("basePath", basePath);
+
+            json.writeObjectFieldStart("paths");
+            for (int i = 0; i < pathCount; i++) {
+                String resource = "resource" + i;
+                String controller = "group" + (i / PATHS_PER_CONTROLLER) + "-rest-controller";
+
+                json.writeObjectFieldStart("/v1/{entityId}/" + resource + "/{id}");
+                for (String verb : VERBS) {
+                    writeOperation(json, verb, resource, controller, parametersPerOperation, false);
+                }
+                json.writeEndObject();
+
+                if (i % MULTIPART_EVERY == 0) {
+                    json.writeObjectFieldStart("/v1/{entityId}/" + resource + "/{id}/upload");
+                    writeOperation(json, "post", resource + "Upload", controller, parametersPerOperation, true);
+                    json.writeEndObject();
+                }
+            }
+            json.writeEndObject();
+
+            json.writeObjectFieldStart("definitions");
+            json.writeObjectFieldStart("Resource");
+            json.writeStringField("type", "object");
+            json.writeObjectFieldStart("properties");
+            json.writeObjectFieldStart("id");
+            json.writeStringField("type", "string");
+            json.writeEndObject();
+            json.writeEndObject();
+            json.writeEndObject();
+            json.writeEndObject();
+
+            json.writeEndObject();
+        }
+    }
+
+    private static void writeOperation(
+            JsonGenerator json,
+            String verb,
+            String resource,
+            String controller,
+            int parametersPerOperation,
+            boolean multipart)
+            throws IOException {
+        String upperVerb = verb.toUpperCase();
+        json.writeObjectFieldStart(verb);
+        json.writeArrayFieldStart("tags");
+        json.writeString(controller);
+        json.writeEndArray();
+        json.writeStringField("summary", upperVerb + " " + resource);
+        json.writeStringField(
+                "operationId", verb + ClassBuilder.capitalizeString(resource) + "Using" + upperVerb);
+        json.writeArrayFieldStart("consumes");
+        json.writeString(multipart ? "multipart/form-data" : "application/json");
+        json.writeEndArray();
+        json.writeArrayFieldStart("produces");
+        json.writeString("*/*");
+        json.writeEndArray();
+
+        json.writeArrayFieldStart("parameters");
+        writeParameter(json, "entityId", "path", "string");
+        writeParameter(json, "id", "path", "string");
+        if (multipart) {
+            writeParameter(json, "file", "formData", "file");
+            writeParameter(json, "description", "formData", "string");
+        } else if (verb.equals("put") || verb.equals("post")) {
+            json.writeStartObject();
+            json.writeStringField("in", "body");
+            json.writeStringField("name", "resource");
+            json.writeBooleanField("required", true);
+            json.writeObjectFieldStart("schema");
+            json.writeStringField("$ref", "#/definitions/Resource");
+            json.writeEndObject();
+            json.writeEndObject();
+        }
+        for (int p = 0; p < parametersPerOperation; p++) {
+            writeParameter(json, "filter" + p, "query", "string");
+        }
+        json.writeEndArray();
+
+        json.writeObjectFieldStart("responses");
+        json.writeObjectFieldStart("200");
+        json.writeStringField("description", "OK");
+        json.writeEndObject();
+        json.writeEndObject();
+        json.writeEndObject();
+    }
+
+    private static void writeParameter(JsonGenerator json, String name, String in, String type)
+            throws IOException {
+        json.writeStartObject();
+        json.writeStringField("name", name);
+        json.writeStringField("in", in);
+        json.writeBooleanField("required", in.equals("path"));
+        json.writeStringField("type", type);
+        json.writeEndObject();
+    }
+}
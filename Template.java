@@ -0,0 +1,100 @@
+package com.company.test.utilities.classgenerator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A format string compiled once into literal and slot segments. Supports the subset of
+ * String.format the generators use, "%s" slots and "%%", and renders exactly what String.format
+ * would, "null" for null values included, by appending straight into the caller's builder.
+ */
+public class Template {
+
+    private final String pattern;
+    // literals[i] comes before slot i, the last literal comes after the last slot
+    private final String[] literals;
+
+    private Template(String pattern, String[] literals) {
+        this.pattern = pattern;
+        this.literals = literals;
+    }
+
+    public static Template compile(String pattern) {
+        List<String> literals = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            if (c != '%') {
+                literal.append(c);
+                i++;
+                continue;
+            }
+            if (i + 1 >= pattern.length()) {
+                throw new IllegalArgumentException("dangling % at the end of template " + pattern);
+            }
+            char conversion = pattern.charAt(i + 1);
+            if (conversion == 's') {
+                literals.add(literal.toString());
+                literal.setLength(0);
+            } else if (conversion == '%') {
+                literal.append('%');
+            } else {
+                throw new IllegalArgumentException(
+                        "unsupported conversion %" + conversion + " in template " + pattern);
+            }
+            i += 2;
+        }
+        literals.add(literal.toString());
+        return new Template(pattern, literals.toArray(new String[0]));
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public int getSlotCount() {
+        return literals.length - 1;
+    }
+
+    public String render(CharSequence... values) {
+        return appendTo(new StringBuilder(estimateLength(values)), values).toString();
+    }
+
+    public StringBuilder appendTo(StringBuilder out, CharSequence... values) {
+        try {
+            appendTo((Appendable) out, values);
+        } catch (IOException e) {
+            // StringBuilder never throws
+            throw new UncheckedIOException(e);
+        }
+        return out;
+    }
+
+    public void appendTo(Appendable out, CharSequence... values) throws IOException {
+        if (values.length != getSlotCount()) {
+            throw new IllegalArgumentException(
+                    "template " + pattern + " takes " + getSlotCount() + " values but got " + values.length);
+        }
+        for (int i = 0; i < values.length; i++) {
+            out.append(literals[i]);
+            out.append(values[i] == null ? "null" : values[i]);
+        }
+        out.append(literals[values.length]);
+    }
+
+    private int estimateLength(CharSequence... values) {
+        int length = pattern.length();
+        for (CharSequence value : values) {
+            length += value == null ? 4 : value.length();
+        }
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+}
@@ -0,0 +1,36 @@
+package com.company.test.utilities.classgenerator;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Named, precompiled templates. ClassBuilder renders every part of a file through one of these,
+ * so registering different templates under the same names makes it emit other file kinds.
+ */
+public class TemplateRegistry {
+
+    private final Map<String, Template> templates = new ConcurrentHashMap<>();
+
+    public TemplateRegistry register(String name, String pattern) {
+        templates.put(name, Template.compile(pattern));
+        return this;
+    }
+
+    public Template get(String name) {
+        Template template = templates.get(name);
+        if (template == null) {
+            throw new IllegalArgumentException("no template registered as " + name);
+        }
+        return template;
+    }
+
+    public boolean contains(String name) {
+        return templates.containsKey(name);
+    }
+
+    public TemplateRegistry copy() {
+        TemplateRegistry copy = new TemplateRegistry();
+        copy.templates.putAll(templates);
+        return copy;
+    }
+}
@@ -0,0 +1,97 @@
+package com.company.test.utilities.classgenerator;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import javax.inject.Inject;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.work.DisableCachingByDefault;
+import org.gradle.workers.WorkAction;
+import org.gradle.workers.WorkParameters;
+import org.gradle.workers.WorkQueue;
+import org.gradle.workers.WorkerExecutor;
+
+/**
+ * Brings the swagger spec cache up to date, one service per work item. It runs on every build
+ * since only the server knows whether a spec has changed, but a 304 leaves the cached spec
+ * untouched, so the generation depending on it stays up to date.
+ */
+@DisableCachingByDefault(because = "Revalidates the specs against the services")
+public abstract class FetchSwaggerSpecs extends DefaultTask {
+
+    @Input
+    public abstract ListProperty<String> getServiceNames();
+
+    // formatted with the service and then the group
+    @Input
+    public abstract Property<String> getSwaggerUrl();
+
+    // use whatever is cached without any network requests
+    @Input
+    public abstract Property<Boolean> getOffline();
+
+    @OutputDirectory
+    public abstract DirectoryProperty getSpecDirectory();
+
+    @Inject
+    protected abstract WorkerExecutor getWorkerExecutor();
+
+    public FetchSwaggerSpecs() {
+        getOutputs().upToDateWhen(task -> false);
+    }
+
+    @TaskAction
+    public void fetch() {
+        WorkQueue queue = getWorkerExecutor().noIsolation();
+        for (String service : getServiceNames().get()) {
+            queue.submit(
+                    FetchSpec.class,
+                    parameters -> {
+                        parameters.getService().set(service);
+                        parameters.getSwaggerUrl().set(getSwaggerUrl());
+                        parameters.getOffline().set(getOffline());
+                        parameters.getSpecDirectory().set(getSpecDirectory());
+                    });
+        }
+    }
+
+    public interface FetchParameters extends WorkParameters {
+        Property<String> getService();
+
+        Property<String> getSwaggerUrl();
+
+        Property<Boolean> getOffline();
+
+        DirectoryProperty getSpecDirectory();
+    }
+
+    public abstract static class FetchSpec implements WorkAction<FetchParameters> {
+        // one client for every work item, so connections are kept alive across services
+        private static final SpecClient CLIENT = new SpecClient();
+
+        @Override
+        public void execute() {
+            FetchParameters parameters = getParameters();
+            String service = parameters.getService().get();
+            SwaggerSpecCache specCache =
+                    new SwaggerSpecCache(
+                            parameters.getSpecDirectory().get().getAsFile().toPath(),
+                            parameters.getSwaggerUrl().get(),
+                            parameters.getOffline().get(),
+                            CLIENT);
+            // a download only replaces the cached spec once it has been read to the end
+            try (Reader spec = specCache.open(service, service)) {
+                spec.transferTo(Writer.nullWriter());
+            } catch (IOException e) {
+                throw new UncheckedIOException("could not fetch the spec of " + service, e);
+            }
+        }
+    }
+}
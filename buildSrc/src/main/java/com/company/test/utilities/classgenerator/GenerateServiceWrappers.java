@@ -0,0 +1,156 @@
+package com.company.test.utilities.classgenerator;
+
+import com.company.test.utilities.classgenerator.RunMetrics.ServiceMetrics;
+import groovyjarjarcommonscli.MissingArgumentException;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import javax.inject.Inject;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.FileSystemOperations;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.IgnoreEmptyDirectories;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.SkipWhenEmpty;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.workers.WorkAction;
+import org.gradle.workers.WorkParameters;
+import org.gradle.workers.WorkQueue;
+import org.gradle.workers.WorkerExecutor;
+
+/**
+ * Generates the service wrappers of every spec into one source directory, one spec per work item
+ * run in parallel through the Worker API. Specs are fingerprinted by content and relative path and
+ * the output does not depend on where the project lives, so a build with unchanged specs and
+ * options is up to date and other checkouts can take the output from the build cache.
+ */
+@CacheableTask
+public abstract class GenerateServiceWrappers extends DefaultTask {
+
+    @InputFiles
+    @SkipWhenEmpty
+    @IgnoreEmptyDirectories
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public abstract ConfigurableFileCollection getSpecs();
+
+    // same values as --flavour
+    @Input
+    public abstract Property<String> getFlavour();
+
+    // same values as --shard, no sharding when absent
+    @Input
+    @Optional
+    public abstract Property<String> getShard();
+
+    @Input
+    public abstract Property<Boolean> getFacade();
+
+    // same as --canonical
+    @Input
+    public abstract Property<Boolean> getCanonical();
+
+    @OutputDirectory
+    public abstract DirectoryProperty getOutputDirectory();
+
+    @Inject
+    protected abstract WorkerExecutor getWorkerExecutor();
+
+    @Inject
+    protected abstract FileSystemOperations getFileSystemOperations();
+
+    @TaskAction
+    public void generate() {
+        // everything in the directory is generated, so wrappers of removed specs go with it
+        getFileSystemOperations().delete(delete -> delete.delete(getOutputDirectory()));
+
+        WorkQueue queue = getWorkerExecutor().noIsolation();
+        for (File spec : getSpecs().getAsFileTree()) {
+            queue.submit(
+                    GenerateServiceWrapper.class,
+                    parameters -> {
+                        parameters.getSpecFile().set(spec);
+                        parameters.getFlavour().set(getFlavour());
+                        parameters.getShard().set(getShard());
+                        parameters.getFacade().set(getFacade());
+                        parameters.getCanonical().set(getCanonical());
+                        parameters.getOutputDirectory().set(getOutputDirectory());
+                    });
+        }
+    }
+
+    public interface GenerateParameters extends WorkParameters {
+        RegularFileProperty getSpecFile();
+
+        Property<String> getFlavour();
+
+        Property<String> getShard();
+
+        Property<Boolean> getFacade();
+
+        Property<Boolean> getCanonical();
+
+        DirectoryProperty getOutputDirectory();
+    }
+
+    public abstract static class GenerateServiceWrapper implements WorkAction<GenerateParameters> {
+        @Override
+        public void execute() {
+            GenerateParameters parameters = getParameters();
+            File spec = parameters.getSpecFile().get().getAsFile();
+            GeneratorOptions options = parseOptions(parameters, spec);
+            String basePath =
+                    new File(
+                                    parameters.getOutputDirectory().get().getAsFile(),
+                                    ServiceWrapperGenerator.packageDirectory(options.getFlavour()))
+                            .getPath();
+            try (Reader reader = Files.newBufferedReader(spec.toPath(), StandardCharsets.UTF_8)) {
+                new ServiceWrapperGenerator(
+                                null,
+                                basePath,
+                                options.getSharding(),
+                                null,
+                                new ServiceMetrics(spec.getName()),
+                                options.getFlavour(),
+                                options.isCanonical())
+                        .generateServiceWrapperClass(reader);
+            } catch (IOException e) {
+                throw new UncheckedIOException("could not generate from " + spec, e);
+            }
+        }
+
+        // validated the same way as on the command line
+        private static GeneratorOptions parseOptions(GenerateParameters parameters, File spec) {
+            List<String> args = new ArrayList<>();
+            args.add("--spec=" + spec);
+            args.add("--flavour=" + parameters.getFlavour().get());
+            if (parameters.getShard().isPresent()) {
+                args.add("--shard=" + parameters.getShard().get());
+            }
+            if (parameters.getFacade().get()) {
+                args.add("--facade");
+            }
+            if (parameters.getCanonical().get()) {
+                args.add("--canonical");
+            }
+            try {
+                return GeneratorOptions.parse(args.toArray(new String[0]), new String[0]);
+            } catch (MissingArgumentException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
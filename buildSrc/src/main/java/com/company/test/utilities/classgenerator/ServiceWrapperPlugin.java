@@ -0,0 +1,78 @@
+package com.company.test.utilities.classgenerator;
+
+import java.util.Arrays;
+import org.gradle.api.Plugin;
+import org.gradle.api.Project;
+import org.gradle.api.file.Directory;
+import org.gradle.api.file.FileTree;
+import org.gradle.api.plugins.JavaPlugin;
+import org.gradle.api.plugins.JavaPluginExtension;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.SourceSet;
+import org.gradle.api.tasks.TaskProvider;
+
+/**
+ * Runs the ServiceWrapperGenerator as part of the build instead of through the application plugin.
+ * fetchSwaggerSpecs brings the spec cache up to date and generateServiceWrappers turns the cached
+ * and any local specs into wrapper sources, which are compiled with the main source set. Since
+ * generation is a cacheable task, builds with unchanged specs skip it or take its output from the
+ * build cache.
+ */
+public class ServiceWrapperPlugin implements Plugin<Project> {
+
+    public static final String TASK_GROUP = "class generator";
+    public static final String FETCH_TASK_NAME = "fetchSwaggerSpecs";
+    public static final String GENERATE_TASK_NAME = "generateServiceWrappers";
+
+    @Override
+    public void apply(Project project) {
+        TaskProvider<FetchSwaggerSpecs> fetch =
+                project.getTasks().register(FETCH_TASK_NAME, FetchSwaggerSpecs.class);
+        fetch.configure(
+                task -> {
+                    task.setGroup(TASK_GROUP);
+                    task.setDescription("Revalidates the cached swagger specs of the services.");
+                    task.getServiceNames().convention(Arrays.asList(ServiceWrapperGenerator.SERVICES));
+                    task.getSwaggerUrl().convention(ServiceWrapperGenerator.SWAGGER_API_URL);
+                    task.getOffline().convention(project.getGradle().getStartParameter().isOffline());
+                    task.getSpecDirectory()
+                            .convention(project.getLayout().getBuildDirectory().dir("classgenerator/specs"));
+                });
+
+        // only the spec bodies, not the validators cached next to them
+        Provider<FileTree> cachedSpecs =
+                fetch.flatMap(FetchSwaggerSpecs::getSpecDirectory)
+                        .map(Directory::getAsFileTree)
+                        .map(specs -> specs.matching(pattern -> pattern.include("*.json")));
+
+        TaskProvider<GenerateServiceWrappers> generate =
+                project.getTasks().register(GENERATE_TASK_NAME, GenerateServiceWrappers.class);
+        generate.configure(
+                task -> {
+                    task.setGroup(TASK_GROUP);
+                    task.setDescription("Generates the service wrapper classes from the swagger specs.");
+                    task.getSpecs().from(cachedSpecs);
+                    task.getFlavour().convention("standard");
+                    task.getFacade().convention(false);
+                    // reordering a spec should not miss the build cache
+                    task.getCanonical().convention(true);
+                    task.getOutputDirectory()
+                            .convention(
+                                    project.getLayout()
+                                            .getBuildDirectory()
+                                            .dir("generated/sources/servicewrappers/java/main"));
+                });
+
+        // compiling the main source set generates the wrappers first
+        project.getPlugins()
+                .withType(
+                        JavaPlugin.class,
+                        plugin ->
+                                project.getExtensions()
+                                        .getByType(JavaPluginExtension.class)
+                                        .getSourceSets()
+                                        .getByName(SourceSet.MAIN_SOURCE_SET_NAME)
+                                        .getJava()
+                                        .srcDir(generate.flatMap(GenerateServiceWrappers::getOutputDirectory)));
+    }
+}
@@ -0,0 +1,83 @@
+package com.company.test.utilities.classgenerator;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClassBuilderBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int members;
+
+    private ClassBuilder populated;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        populated = populate(members);
+    }
+
+    @Benchmark
+    public ClassBuilder add() {
+        return populate(members);
+    }
+
+    @Benchmark
+    public ClassBuilder addAndRemove() {
+        ClassBuilder builder = populate(members);
+        for (int i = members - 1; i >= 0; i--) {
+            builder.removeImportStatement(importPath(i));
+            builder.removeField("ENDPOINT_" + i);
+            builder.removeMethod("getResource" + i, "String id, String filter");
+        }
+        return builder;
+    }
+
+    @Benchmark
+    public String generateFileContent() {
+        return populated.generateFileContent();
+    }
+
+    @Benchmark
+    public Writer renderToWriter() throws IOException {
+        Writer writer = Writer.nullWriter();
+        populated.renderTo(writer);
+        return writer;
+    }
+
+    static ClassBuilder populate(int members) {
+        ClassBuilder builder = new ClassBuilder("com.company.benchmark", "Generated" + members);
+        for (int i = 0; i < members; i++) {
+            builder.addImportStatement(importPath(i));
+            builder.addPrivateStaticFinalStringField("ENDPOINT_" + i, "\"resource" + i + "/{id}\"");
+            builder.addPublicStaticMethod(
+                    "Performable",
+                    "getResource" + i,
+                    "String id, String filter",
+                    "",
+                    "return Task.where(\"{0} get resource " + i + "\", actor -> {});");
+        }
+        return builder;
+    }
+
+    private static String importPath(int i) {
+        return "com.company.benchmark.model" + (i % 64) + ".Type" + i;
+    }
+}
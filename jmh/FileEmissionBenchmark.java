@@ -0,0 +1,59 @@
+package com.company.test.utilities.classgenerator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// writes into tmpfs when the machine has one, so the numbers are about our code and not the disk
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileEmissionBenchmark {
+
+    private static final Path TMPFS = Paths.get("/dev/shm");
+
+    @Param({"100", "1000", "10000"})
+    public int members;
+
+    private ClassBuilder builder;
+    private String directory;
+    private GenerationManifest manifest;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        builder = ClassBuilderBenchmark.populate(members);
+        Path root = Files.isDirectory(TMPFS) ? TMPFS : Paths.get(System.getProperty("java.io.tmpdir"));
+        Path output = Files.createTempDirectory(root, "classbuilder-benchmark");
+        directory = output.toString();
+        manifest = new GenerationManifest(output.resolve("manifest"));
+        builder.generateClassAt(directory, manifest);
+    }
+
+    @Benchmark
+    public void generateClassAt() {
+        builder.generateClassAt(directory);
+    }
+
+    // content never changes, so this measures rendering, hashing, the size check and the skip
+    @Benchmark
+    public boolean generateClassAtIncremental() {
+        return builder.generateClassAt(directory, manifest);
+    }
+}
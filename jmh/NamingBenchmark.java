@@ -0,0 +1,77 @@
+package com.company.test.utilities.classgenerator;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NamingBenchmark {
+
+    private static final int OPERATIONS = 1000;
+    private static final String[] VERBS = {"GET", "PUT", "POST", "DELETE", "PATCH"};
+
+    private final String[] operationIds = new String[OPERATIONS];
+    private final String[] controllers = new String[OPERATIONS];
+    private final String[] paths = new String[OPERATIONS];
+    private ServiceWrapperNaming warmNaming;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        for (int i = 0; i < OPERATIONS; i++) {
+            String verb = VERBS[i % VERBS.length];
+            operationIds[i] =
+                    verb.toLowerCase() + "Resource" + i + "Using" + verb + (i % 7 == 0 ? "_1" : "");
+            controllers[i] = "group" + (i / 50) + "-rest-controller";
+            paths[i] = "/v1/{entityId}/resource" + i + "/{id}" + (i % 5 == 0 ? "/filter{?name}" : "");
+        }
+        warmNaming = new ServiceWrapperNaming();
+        deriveAll(warmNaming, null);
+    }
+
+    // every name is computed from scratch, nothing is memoized yet
+    @Benchmark
+    public void cold(Blackhole blackhole) {
+        deriveAll(new ServiceWrapperNaming(), blackhole);
+    }
+
+    // the same operations again, as when several runs or shards reuse one naming instance
+    @Benchmark
+    public void memoized(Blackhole blackhole) {
+        deriveAll(warmNaming, blackhole);
+    }
+
+    @Benchmark
+    public void parameterFilter(Blackhole blackhole) {
+        for (String operationId : operationIds) {
+            blackhole.consume(warmNaming.isWrapperParameter(operationId));
+        }
+    }
+
+    private void deriveAll(ServiceWrapperNaming naming, Blackhole blackhole) {
+        for (int i = 0; i < OPERATIONS; i++) {
+            String value = naming.endpointConstantValue(paths[i]);
+            String constant = naming.endpointValueConstantName(value);
+            String method = naming.methodName(operationIds[i], controllers[i]);
+            if (blackhole != null) {
+                blackhole.consume(constant);
+                blackhole.consume(method);
+                blackhole.consume(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.company.test.utilities.classgenerator;
+
+import com.company.test.utilities.classgenerator.SwaggerSpecParser.SwaggerSpec;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// end to end over synthetic specs, see SyntheticSwaggerSpec for their shape (multipart included)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceWrapperGeneratorBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int paths;
+
+    @Param({"2", "8"})
+    public int parametersPerOperation;
+
+    private String json;
+    private ServiceWrapperGenerator generator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        json = SyntheticSwaggerSpec.generate("/synthetic-service", paths, parametersPerOperation);
+        generator = new ServiceWrapperGenerator();
+    }
+
+    @Benchmark
+    public SwaggerSpec parse() throws IOException {
+        return SwaggerSpecParser.parse(json);
+    }
+
+    @Benchmark
+    public ClassBuilder parseAndBuild() throws IOException {
+        return generator.buildServiceWrapperClass(SwaggerSpecParser.parse(json));
+    }
+
+    @Benchmark
+    public Writer parseBuildAndRender() throws IOException {
+        Writer writer = Writer.nullWriter();
+        generator.buildServiceWrapperClass(SwaggerSpecParser.parse(json)).renderTo(writer);
+        return writer;
+    }
+}
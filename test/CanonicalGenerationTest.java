@@ -0,0 +1,140 @@
+package com.company.test.utilities.classgenerator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import com.company.test.utilities.classgenerator.RunMetrics.ServiceMetrics;
+import com.company.test.utilities.classgenerator.ServiceWrapperGenerator.Flavour;
+import com.company.test.utilities.classgenerator.ServiceWrapperGenerator.Sharding;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Generates a synthetic spec and shuffled copies of it, which must give byte-identical classes
+ * when generated canonically.
+ */
+public class CanonicalGenerationTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String SPEC = SyntheticSwaggerSpec.generate("/synthetic-service", 120, 3);
+    private static final int SHUFFLES = 3;
+
+    @TempDir Path output;
+
+    @Test
+    void shuffledSpecsGiveIdenticalClasses() throws IOException {
+        assertShuffleIndependent(Sharding.NONE, Flavour.STANDARD);
+    }
+
+    @Test
+    void shuffledSpecsGiveIdenticalShards() throws IOException {
+        assertShuffleIndependent(new Sharding(false, 7, true), Flavour.STANDARD);
+        assertShuffleIndependent(new Sharding(true, 0, true), Flavour.SHARED_SPECS);
+    }
+
+    @Test
+    void shuffledSpecsGiveIdenticalLoadClients() throws IOException {
+        assertShuffleIndependent(Sharding.NONE, Flavour.LOAD_TEST);
+    }
+
+    @Test
+    void watchUpdatesWriteTheSameClassesAsARegularRun() throws IOException {
+        Sharding sharding = new Sharding(false, 7, true);
+        Map<String, String> expected = generate(SPEC, sharding, Flavour.STANDARD, true);
+
+        Path directory = Files.createTempDirectory(output, "watch");
+        SpecWatcher watcher =
+                new SpecWatcher(
+                        newGenerator(directory, sharding, Flavour.STANDARD, true),
+                        new GenerationManifest(directory.resolve("manifest.json")),
+                        Files.createTempDirectory(output, "staging"),
+                        BatchClassWriter.FsyncPolicy.NEVER);
+        for (int seed = 1; seed <= SHUFFLES; seed++) {
+            watcher.update("synthetic-service", SwaggerSpecParser.parse(shuffle(SPEC, seed)));
+            Map<String, String> written = read(directory);
+            written.remove("manifest.json");
+            assertEquals(expected, written, "seed " + seed);
+        }
+    }
+
+    @Test
+    void shufflingChangesTheOutputInSpecOrder() throws IOException {
+        Map<String, String> original = generate(SPEC, Sharding.NONE, Flavour.STANDARD, false);
+        Map<String, String> shuffled =
+                generate(shuffle(SPEC, 1), Sharding.NONE, Flavour.STANDARD, false);
+
+        assertEquals(original.keySet(), shuffled.keySet());
+        assertNotEquals(original, shuffled);
+    }
+
+    private void assertShuffleIndependent(Sharding sharding, Flavour flavour) throws IOException {
+        Map<String, String> expected = generate(SPEC, sharding, flavour, true);
+        for (int seed = 1; seed <= SHUFFLES; seed++) {
+            assertEquals(
+                    expected, generate(shuffle(SPEC, seed), sharding, flavour, true), "seed " + seed);
+        }
+    }
+
+    // every generated file by its path relative to the output directory
+    private Map<String, String> generate(
+            String spec, Sharding sharding, Flavour flavour, boolean canonical) throws IOException {
+        Path directory = Files.createTempDirectory(output, "run");
+        newGenerator(directory, sharding, flavour, canonical)
+                .generateServiceWrapperClass(new StringReader(spec));
+        return read(directory);
+    }
+
+    private static ServiceWrapperGenerator newGenerator(
+            Path directory, Sharding sharding, Flavour flavour, boolean canonical) {
+        return new ServiceWrapperGenerator(
+                null,
+                directory + "/%s",
+                sharding,
+                null,
+                new ServiceMetrics("synthetic-service"),
+                flavour,
+                canonical);
+    }
+
+    private static Map<String, String> read(Path directory) throws IOException {
+        Map<String, String> files = new TreeMap<>();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.filter(Files::isRegularFile)::iterator) {
+                files.put(directory.relativize(path).toString(), Files.readString(path));
+            }
+        }
+        return files;
+    }
+
+    // the same spec with its paths, and the verbs of each path, in a random order
+    @SuppressWarnings("unchecked")
+    private static String shuffle(String spec, long seed) throws IOException {
+        Random random = new Random(seed);
+        Map<String, Object> root = MAPPER.readValue(spec, LinkedHashMap.class);
+        Map<String, Object> paths = shuffled((Map<String, Object>) root.get("paths"), random);
+        paths.replaceAll((endpoint, verbs) -> shuffled((Map<String, Object>) verbs, random));
+        root.put("paths", paths);
+        return MAPPER.writeValueAsString(root);
+    }
+
+    private static Map<String, Object> shuffled(Map<String, Object> map, Random random) {
+        List<Map.Entry<String, Object>> entries = new ArrayList<>(map.entrySet());
+        Collections.shuffle(entries, random);
+        Map<String, Object> result = new LinkedHashMap<>();
+        entries.forEach(e -> result.put(e.getKey(), e.getValue()));
+        return result;
+    }
+}
@@ -0,0 +1,93 @@
+package com.company.test.utilities.classgenerator;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Skipping unchanged classes, directly and through the batch writer. */
+public class GenerationManifestTest {
+
+    @TempDir Path directory;
+
+    @Test
+    void skipsClassesThatAreUnchangedOnDisk() {
+        GenerationManifest manifest = new GenerationManifest(directory.resolve("manifest"));
+        ClassBuilder classBuilder = newClass();
+
+        assertTrue(classBuilder.generateClassAt(directory.toString(), manifest));
+        assertFalse(classBuilder.generateClassAt(directory.toString(), manifest));
+        assertEquals(1, manifest.getWrittenCount());
+        assertEquals(1, manifest.getSkippedCount());
+    }
+
+    @Test
+    void writesTheBytesItHashed() throws IOException {
+        GenerationManifest manifest = new GenerationManifest(directory.resolve("manifest"));
+        ClassBuilder classBuilder = newClass();
+        classBuilder.generateClassAt(directory.toString(), manifest);
+
+        byte[] written = Files.readAllBytes(directory.resolve(classBuilder.getFileName()));
+        assertArrayEquals(classBuilder.generateFileBytes(), written);
+        assertTrue(
+                manifest.isUnchanged(
+                        directory.resolve(classBuilder.getFileName()).toString(),
+                        ClassBuilder.contentHash(written),
+                        written.length));
+    }
+
+    @Test
+    void rewritesClassesChangedOrDeletedOnDisk() throws IOException {
+        GenerationManifest manifest = new GenerationManifest(directory.resolve("manifest"));
+        ClassBuilder classBuilder = newClass();
+        Path file = directory.resolve(classBuilder.getFileName());
+        classBuilder.generateClassAt(directory.toString(), manifest);
+        byte[] expected = Files.readAllBytes(file);
+
+        Files.writeString(file, "// edited by hand\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        assertTrue(classBuilder.generateClassAt(directory.toString(), manifest));
+        assertArrayEquals(expected, Files.readAllBytes(file));
+
+        Files.delete(file);
+        assertTrue(classBuilder.generateClassAt(directory.toString(), manifest));
+        assertArrayEquals(expected, Files.readAllBytes(file));
+    }
+
+    @Test
+    void stagesOnlyClassesThatAreNotUpToDate() throws IOException {
+        GenerationManifest manifest = new GenerationManifest(directory.resolve("manifest"));
+        Path output = directory.resolve("output");
+        Path staging = directory.resolve("staging");
+        ClassBuilder classBuilder = newClass();
+        Path file = output.resolve(classBuilder.getFileName());
+
+        BatchClassWriter writer = new BatchClassWriter(manifest, staging, BatchClassWriter.FsyncPolicy.NEVER);
+        long size = writer.stage(classBuilder, output.toString());
+        writer.commit();
+        assertEquals(Files.size(file), size);
+
+        writer = new BatchClassWriter(manifest, staging, BatchClassWriter.FsyncPolicy.NEVER);
+        assertEquals(0, writer.stage(classBuilder, output.toString()));
+        writer.commit();
+
+        Files.writeString(file, "class Truncated {}", StandardCharsets.UTF_8);
+        writer = new BatchClassWriter(manifest, staging, BatchClassWriter.FsyncPolicy.NEVER);
+        assertEquals(size, writer.stage(classBuilder, output.toString()));
+        writer.commit();
+        assertArrayEquals(classBuilder.generateFileBytes(), Files.readAllBytes(file));
+    }
+
+    private static ClassBuilder newClass() {
+        ClassBuilder classBuilder = new ClassBuilder("com.company.test.models.catalog", "Item");
+        classBuilder.addPrivateStaticFinalStringField("ITEMS_ENDPOINT", "\"items\"");
+        return classBuilder;
+    }
+}
@@ -0,0 +1,123 @@
+package com.company.test.utilities.classgenerator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.company.test.utilities.classgenerator.RunMetrics.ServiceMetrics;
+import com.company.test.utilities.classgenerator.ServiceWrapperGenerator.Flavour;
+import com.company.test.utilities.classgenerator.ServiceWrapperGenerator.Sharding;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import javax.tools.ToolProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Compiles a generated load client and sends its requests to a local stub server. */
+public class LoadTestClientTest {
+
+    // implicit tenantId and productId templates, a declared path parameter, a header and a query
+    private static final String SPEC =
+            "{\"swagger\":\"2.0\",\"basePath\":\"/orders\",\"paths\":{"
+                    + "\"/v2/{tenantId}/products/{productId}/orders/{orderId}{?expand}\":{\"get\":{"
+                    + "\"tags\":[\"order-rest-controller\"],\"summary\":\"Get order\","
+                    + "\"operationId\":\"getOrderUsingGET\",\"consumes\":[\"application/json\"],"
+                    + "\"parameters\":["
+                    + "{\"name\":\"tenantId\",\"in\":\"path\",\"required\":true,\"type\":\"string\"},"
+                    + "{\"name\":\"orderId\",\"in\":\"path\",\"required\":true,\"type\":\"string\"},"
+                    + "{\"name\":\"correlationId\",\"in\":\"header\",\"required\":false,\"type\":\"string\"},"
+                    + "{\"name\":\"expand\",\"in\":\"query\",\"required\":false,\"type\":\"string\"}]}}}}";
+
+    @TempDir Path directory;
+
+    private HttpServer server;
+    // the raw path and query, then the correlationId header, of every request
+    private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::serve);
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void buildsTheFullPathWithEveryTemplateEncoded() throws Exception {
+        Method getOrder = loadClient();
+
+        assertEquals(
+                200, send(getOrder, "acme corp", "p/1", "o 1", "trace", "lines").statusCode());
+        assertEquals(
+                List.of("/orders/v2/acme%20corp/products/p%2F1/orders/o%201?expand=lines", "trace"),
+                requests);
+    }
+
+    @Test
+    void leavesOutHeadersWithoutAValue() throws Exception {
+        Method getOrder = loadClient();
+
+        assertEquals(200, send(getOrder, "acme", "p1", "o1", null, null).statusCode());
+        assertEquals(List.of("/orders/v2/acme/products/p1/orders/o1", ""), requests);
+    }
+
+    // the only operation of the generated client, which reads its base url when first used
+    private Method loadClient() throws Exception {
+        ServiceWrapperGenerator generator =
+                new ServiceWrapperGenerator(
+                        null, "unused/%s", Sharding.NONE, null, new ServiceMetrics("orders"), Flavour.LOAD_TEST);
+        ClassBuilder client =
+                generator.buildServiceWrapperClass(SwaggerSpecParser.parse(new StringReader(SPEC)));
+        Path source = Files.writeString(directory.resolve(client.getFileName()), client.generateFileContent());
+        Path classes = Files.createDirectories(directory.resolve("classes"));
+        assertEquals(
+                0,
+                ToolProvider.getSystemJavaCompiler()
+                        .run(null, null, null, "-d", classes.toString(), source.toString()));
+
+        System.setProperty(
+                "orders.baseUrl", "http://127.0.0.1:" + server.getAddress().getPort() + "/orders");
+        ClassLoader loader = new URLClassLoader(new URL[] {classes.toUri().toURL()});
+        Class<?> clientClass = loader.loadClass("com.company.test.load.orders.OrdersServiceLoadClient");
+        List<Method> operations = new ArrayList<>();
+        for (Method method : clientClass.getMethods()) {
+            if (method.getReturnType() == CompletableFuture.class) {
+                operations.add(method);
+            }
+        }
+        assertEquals(1, operations.size());
+        return operations.get(0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static HttpResponse<?> send(Method operation, Object... arguments) throws Exception {
+        return ((CompletableFuture<HttpResponse<?>>) operation.invoke(null, arguments)).join();
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getRawQuery();
+        String correlationId = exchange.getRequestHeaders().getFirst("correlationId");
+        requests.add(exchange.getRequestURI().getRawPath() + (query == null ? "" : "?" + query));
+        requests.add(correlationId == null ? "" : correlationId);
+        exchange.sendResponseHeaders(200, -1);
+        exchange.close();
+    }
+}
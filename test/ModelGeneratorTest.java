@@ -0,0 +1,87 @@
+package com.company.test.utilities.classgenerator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import com.company.test.utilities.classgenerator.SwaggerSpecParser.ModelSpec;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+public class ModelGeneratorTest {
+
+    // properties only differing by case, and json names that need escaping in a string literal
+    private static final String SPEC =
+            "{\"swagger\":\"2.0\",\"basePath\":\"/product-catalog\",\"paths\":{},\"definitions\":{"
+                    + "\"Item\":{\"type\":\"object\",\"properties\":{"
+                    + "\"id\":{\"type\":\"string\"},"
+                    + "\"Id\":{\"type\":\"integer\"},"
+                    + "\"ID\":{\"type\":\"boolean\"},"
+                    + "\"say \\\"hi\\\"\":{\"type\":\"string\"},"
+                    + "\"back\\\\slash\":{\"type\":\"string\"},"
+                    + "\"new\\nline\":{\"type\":\"string\"}}}}}";
+
+    // definitions named like the types the model classes import or take from java.lang
+    private static final String CLASHING_SPEC =
+            "{\"swagger\":\"2.0\",\"basePath\":\"/product-catalog\",\"paths\":{},\"definitions\":{"
+                    + "\"List\":{\"type\":\"object\",\"properties\":{\"size\":{\"type\":\"integer\"}}},"
+                    + "\"Map\":{\"type\":\"object\",\"properties\":{"
+                    + "\"entries\":{\"type\":\"object\",\"additionalProperties\":{\"type\":\"string\"}}}},"
+                    + "\"String\":{\"type\":\"object\",\"properties\":{\"value\":{\"type\":\"string\"}}},"
+                    + "\"Catalog\":{\"type\":\"object\",\"properties\":{"
+                    + "\"lists\":{\"type\":\"array\",\"items\":{\"$ref\":\"#/definitions/List\"}},"
+                    + "\"map\":{\"$ref\":\"#/definitions/Map\"}}}}}";
+
+    @Test
+    void givesEveryPropertyItsOwnAccessors() throws IOException {
+        ClassBuilder item = buildItem();
+
+        assertEquals(6, item.getFields().size());
+        assertEquals(12, item.getMethods().size());
+        assertNotNull(item.getMethod(ClassBuilder.MethodMember.signature("getId", "")));
+        assertNotNull(item.getMethod(ClassBuilder.MethodMember.signature("getId2", "")));
+        assertNotNull(item.getMethod(ClassBuilder.MethodMember.signature("getID", "")));
+    }
+
+    @Test
+    void generatesCompilingClasses() throws IOException {
+        GeneratedSourceVerifier verifier = new GeneratedSourceVerifier();
+        verifier.add(buildItem(), Map.of());
+
+        assertEquals(List.of(), verifier.verify());
+    }
+
+    @Test
+    void annotatesRenamedFieldsWithoutTouchingTheirAccessLevel() throws IOException {
+        ClassBuilder item = buildItem();
+
+        for (ClassBuilder.FieldMember field : item.getFields()) {
+            assertEquals("private", field.accessLevel, field.name);
+        }
+        assertEquals(List.of(), item.getField("id").annotations);
+        assertEquals(List.of("@JsonProperty(\"say \\\"hi\\\"\")"), item.getField("sayHi").annotations);
+    }
+
+    @Test
+    void renamesClassesThatClashWithTheirImports() throws IOException {
+        ModelSpec spec = SwaggerSpecParser.parseDefinitions(new StringReader(CLASHING_SPEC));
+        List<ClassBuilder> classBuilders = new ModelGenerator().buildModelClasses(spec);
+        GeneratedSourceVerifier verifier = new GeneratedSourceVerifier();
+        classBuilders.forEach(classBuilder -> verifier.add(classBuilder, Map.of()));
+
+        assertEquals(
+                List.of("ListModel", "MapModel", "StringModel", "Catalog"),
+                classBuilders.stream().map(ClassBuilder::getClassName).collect(Collectors.toList()));
+        assertEquals(List.of(), verifier.verify());
+    }
+
+    private ClassBuilder buildItem() throws IOException {
+        ModelSpec spec = SwaggerSpecParser.parseDefinitions(new StringReader(SPEC));
+        List<ClassBuilder> classBuilders = new ModelGenerator().buildModelClasses(spec);
+        assertEquals(1, classBuilders.size());
+        return classBuilders.get(0);
+    }
+}
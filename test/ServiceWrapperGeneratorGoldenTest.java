@@ -0,0 +1,109 @@
+package com.company.test.utilities.classgenerator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import com.company.test.utilities.classgenerator.RunMetrics.ServiceMetrics;
+import com.company.test.utilities.classgenerator.ServiceWrapperGenerator.Flavour;
+import com.company.test.utilities.classgenerator.ServiceWrapperGenerator.Sharding;
+import com.company.test.utilities.classgenerator.SwaggerSpecParser.SwaggerSpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares the generated classes of a small product catalog spec with the golden files under
+ * golden/&lt;case&gt;. After a deliberate change to the output, run the tests with
+ * -Dgolden.update=test/resources/golden to rewrite the golden files and review their diff.
+ */
+public class ServiceWrapperGeneratorGoldenTest {
+
+    private static final String GOLDEN = "/golden/";
+    private static final String SPEC = GOLDEN + "product-catalog.json";
+    private static final String GOLDEN_EXTENSION = ".golden";
+
+    @Test
+    void standard() throws IOException {
+        assertGolden("standard", Flavour.STANDARD, Sharding.NONE, 1);
+    }
+
+    @Test
+    void shardedByControllerWithFacade() throws IOException {
+        assertGolden("sharded", Flavour.STANDARD, new Sharding(true, 0, true), 2);
+    }
+
+    @Test
+    void sharedSpecs() throws IOException {
+        assertGolden("shared-specs", Flavour.SHARED_SPECS, Sharding.NONE, 1);
+    }
+
+    @Test
+    void loadTest() throws IOException {
+        assertGolden("load-test", Flavour.LOAD_TEST, Sharding.NONE, 1);
+    }
+
+    // each case on its own, since the flavours share class names
+    @Test
+    void everyCaseCompiles() throws IOException {
+        for (Flavour flavour : Flavour.values()) {
+            assertCompiles(flavour, Sharding.NONE);
+        }
+        assertCompiles(Flavour.STANDARD, new Sharding(true, 0, true));
+    }
+
+    private void assertCompiles(Flavour flavour, Sharding sharding) throws IOException {
+        GeneratedSourceVerifier verifier = new GeneratedSourceVerifier();
+        build(flavour, sharding).forEach(classBuilder -> verifier.add(classBuilder, Map.of()));
+        assertEquals(List.of(), verifier.verify(), flavour.name());
+    }
+
+    private void assertGolden(String goldenCase, Flavour flavour, Sharding sharding, int classCount)
+            throws IOException {
+        List<ClassBuilder> classBuilders = build(flavour, sharding);
+        assertEquals(classCount, classBuilders.size());
+
+        String update = System.getProperty("golden.update");
+        for (ClassBuilder classBuilder : classBuilders) {
+            String name = goldenCase + "/" + classBuilder.getFileName() + GOLDEN_EXTENSION;
+            String generated = classBuilder.generateFileContent();
+            if (update != null) {
+                Path golden = Path.of(update, name);
+                Files.createDirectories(golden.getParent());
+                Files.writeString(golden, generated, StandardCharsets.UTF_8);
+                continue;
+            }
+            String expected = read(GOLDEN + name);
+            assertNotNull(expected, "no golden file " + name);
+            assertEquals(expected, generated, name);
+        }
+    }
+
+    private static List<ClassBuilder> build(Flavour flavour, Sharding sharding) throws IOException {
+        ServiceWrapperGenerator generator =
+                new ServiceWrapperGenerator(
+                        null, "unused/%s", sharding, null, new ServiceMetrics("product-catalog"), flavour);
+        return generator.buildServiceWrapperClasses(parse(SPEC));
+    }
+
+    static SwaggerSpec parse(String resource) throws IOException {
+        try (Reader reader =
+                new InputStreamReader(
+                        ServiceWrapperGeneratorGoldenTest.class.getResourceAsStream(resource),
+                        StandardCharsets.UTF_8)) {
+            return SwaggerSpecParser.parse(reader);
+        }
+    }
+
+    private static String read(String resource) throws IOException {
+        try (InputStream in = ServiceWrapperGeneratorGoldenTest.class.getResourceAsStream(resource)) {
+            return in == null ? null : new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.company.test.utilities.classgenerator;
+
+import static com.company.test.utilities.classgenerator.ClassBuilder.capitalizeStringArrToString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.common.base.CaseFormat;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import javax.lang.model.SourceVersion;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares ServiceWrapperNaming against the regex chains it replaced. naming-corpus.tsv holds
+ * inputs taken from real specs and edge cases next to what the regexes made of them, one
+ * "method, input(s), expected" line each with \t, \n, \r and \\ escaped. Endpoint constant
+ * names never had a regex version, so their entries only pin down the scanner's output.
+ */
+public class ServiceWrapperNamingTest {
+
+    private static final String CORPUS = "/naming/naming-corpus.tsv";
+    private static final int RANDOM_INPUTS = 20_000;
+    private static final String RANDOM_ALPHABET = "abeglmdtiIEGTPUOSDLACHN_-/.{}?1 \n";
+    private static final String CONTROLLER_SUFFIX = "-rest-controller";
+
+    private final ServiceWrapperNaming naming = new ServiceWrapperNaming();
+
+    @Test
+    void matchesTheGoldenCorpus() throws IOException {
+        List<String[]> corpus = readCorpus();
+        assertTrue(corpus.size() > 100, "corpus has only " + corpus.size() + " entries");
+        for (String[] entry : corpus) {
+            String expected = entry[entry.length - 1];
+            assertEquals(expected, scanned(entry), String.join(" ", entry));
+            // the corpus itself still has to be what the regexes produce
+            if (!entry[0].equals("endpointValueConstantName")) {
+                assertEquals(expected, regex(entry), "stale corpus entry " + String.join(" ", entry));
+            }
+        }
+    }
+
+    @Test
+    void matchesTheRegexesOnRandomInputs() {
+        Random random = new Random(7);
+        for (int i = 0; i < RANDOM_INPUTS; i++) {
+            String value = randomString(random, 1 + random.nextInt(24));
+            String controller = randomController(random) + CONTROLLER_SUFFIX;
+            for (String[] entry :
+                    new String[][] {
+                        {"endpointConstantValue", value},
+                        {"methodName", value, controller},
+                        {"packageName", value},
+                        {"className", value},
+                        {"isWrapperParameter", value}
+                    }) {
+                assertEquals(regex(entry), scanned(entry), String.join(" ", entry));
+            }
+            String constant = naming.endpointValueConstantName(value);
+            assertTrue(
+                    SourceVersion.isIdentifier(constant) && constant.endsWith("ENDPOINT")
+                            && constant.equals(constant.toUpperCase()),
+                    value + " -> " + constant);
+        }
+    }
+
+    private String scanned(String[] entry) {
+        switch (entry[0]) {
+            case "endpointValueConstantName":
+                return naming.endpointValueConstantName(entry[1]);
+            case "endpointConstantValue":
+                return naming.endpointConstantValue(entry[1]);
+            case "methodName":
+                return naming.methodName(entry[1], entry[2]);
+            case "packageName":
+                return naming.packageName(entry[1]);
+            case "className":
+                return naming.className(entry[1]);
+            case "isWrapperParameter":
+                return String.valueOf(naming.isWrapperParameter(entry[1]));
+            default:
+                throw new IllegalStateException("unknown corpus method " + entry[0]);
+        }
+    }
+
+    static String regex(String[] entry) {
+        switch (entry[0]) {
+            case "endpointConstantValue":
+                return RegexNaming.generateEndpointConstantValue(entry[1]);
+            case "methodName":
+                return RegexNaming.generateMethodName(entry[1], entry[2]);
+            case "packageName":
+                return RegexNaming.generatePackageName(entry[1]);
+            case "className":
+                return RegexNaming.generateClassName(entry[1]);
+            case "isWrapperParameter":
+                return String.valueOf(RegexNaming.isWrapperParameter(entry[1]));
+            default:
+                throw new IllegalStateException("unknown corpus method " + entry[0]);
+        }
+    }
+
+    private List<String[]> readCorpus() throws IOException {
+        List<String[]> corpus = new ArrayList<>();
+        try (InputStream in = getClass().getResourceAsStream(CORPUS);
+                BufferedReader reader =
+                        new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] entry = line.split("\t", -1);
+                for (int i = 0; i < entry.length; i++) {
+                    entry[i] = unescape(entry[i]);
+                }
+                corpus.add(entry);
+            }
+        }
+        return corpus;
+    }
+
+    static String unescape(String value) {
+        StringBuilder result = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '\\' || i == value.length() - 1) {
+                result.append(c);
+                continue;
+            }
+            char escaped = value.charAt(++i);
+            result.append(escaped == 't' ? '\t' : escaped == 'n' ? '\n' : escaped == 'r' ? '\r' : escaped);
+        }
+        return result.toString();
+    }
+
+    private static String randomString(Random random, int length) {
+        StringBuilder result = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            result.append(RANDOM_ALPHABET.charAt(random.nextInt(RANDOM_ALPHABET.length())));
+        }
+        return result.toString();
+    }
+
+    private static String randomController(Random random) {
+        String[] words = {"item", "product", "price", "image", "search", "api", "v2"};
+        StringBuilder result = new StringBuilder(words[random.nextInt(words.length)]);
+        for (int i = random.nextInt(3); i > 0; i--) {
+            result.append('-').append(words[random.nextInt(words.length)]);
+        }
+        return result.toString();
+    }
+
+    // the ServiceWrapperGenerator methods as they were before ServiceWrapperNaming
+    static class RegexNaming {
+
+        static String generatePackageName(String path) {
+            return path.replaceAll("[^A-z]+", "").toLowerCase();
+        }
+
+        static String generateEndpointConstantValue(String path) {
+            if (path.contains("filter")) {
+                int filterIndex = path.lastIndexOf("{");
+                path = path.substring(0, filterIndex);
+            }
+            return "\"" + path.replaceAll("^.*\\{entityId}/", "").replaceAll("\\{\\?.*", "") + "\"";
+        }
+
+        static String generateMethodName(String operationId, String controllerNameFromSwagger) {
+            String controllerName =
+                    controllerNameFromSwagger.substring(0, controllerNameFromSwagger.length() - 15);
+            String controllerNameInCamelCase =
+                    CaseFormat.LOWER_HYPHEN.to(CaseFormat.LOWER_CAMEL, controllerName);
+
+            if (!operationId.toLowerCase().contains(controllerNameInCamelCase.toLowerCase())) {
+                operationId = operationId.substring(0, 1).toUpperCase() + operationId.substring(1);
+                operationId = controllerNameInCamelCase + operationId;
+            }
+
+            return operationId
+                    .replaceAll("GET", "Get")
+                    .replaceAll("PUT", "Put")
+                    .replaceAll("POST", "Post")
+                    .replaceAll("DELETE", "Delete")
+                    .replaceAll("PATCH", "Patch")
+                    .replaceAll("_.$", "");
+        }
+
+        static String generateClassName(String path) {
+            String[] arr = path.toLowerCase().replaceAll("/", "").trim().split("[^A-z]+");
+            return capitalizeStringArrToString(arr);
+        }
+
+        static boolean isWrapperParameter(String name) {
+            return name.matches("^(?!productId$|entityId$|tenantId$).*");
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.company.test.utilities.classgenerator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Runs the spec cache against a local stub server standing in for the services. */
+public class SwaggerSpecCacheTest {
+
+    private static final String SPEC = "{\"swagger\":\"2.0\",\"paths\":{}}";
+    private static final String CHANGED_SPEC = "{\"swagger\":\"2.0\",\"paths\":{\"/v1\":{}}}";
+
+    @TempDir Path cacheDirectory;
+
+    private HttpServer server;
+    private volatile String body = SPEC;
+    private volatile String etag = "\"1\"";
+    private volatile boolean gzip;
+    // the If-None-Match header of every request, "" when there was none
+    private final List<String> conditions = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::serve);
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void downloadsAndCachesTheSpecWithItsValidators() throws IOException {
+        SwaggerSpecCache cache = newCache(false);
+
+        assertEquals(SPEC, cache.fetch("product-catalog", "product-catalog"));
+        assertEquals(List.of(""), conditions);
+        assertTrue(cache.summary().startsWith("1 spec(s) downloaded, 0 revalidated"));
+    }
+
+    @Test
+    void revalidatesTheCachedSpecWithItsETag() throws IOException {
+        newCache(false).fetch("product-catalog", "product-catalog");
+
+        SwaggerSpecCache cache = newCache(false);
+        SwaggerSpecCache.SpecReader reader = cache.open("product-catalog", "product-catalog");
+        // a cached spec knows its hash before it is read
+        String hash = reader.getHash();
+        reader.close();
+
+        assertEquals(List.of("", "\"1\""), conditions);
+        assertEquals(
+                SwaggerSpecCache.sha256(cacheDirectory.resolve("product-catalog.product-catalog.json")),
+                hash);
+        assertTrue(cache.summary().startsWith("0 spec(s) downloaded, 1 revalidated"));
+    }
+
+    @Test
+    void replacesTheCachedSpecWhenTheETagChanges() throws IOException {
+        newCache(false).fetch("product-catalog", "product-catalog");
+        body = CHANGED_SPEC;
+        etag = "\"2\"";
+
+        assertEquals(CHANGED_SPEC, newCache(false).fetch("product-catalog", "product-catalog"));
+        assertEquals(CHANGED_SPEC, newCache(true).fetch("product-catalog", "product-catalog"));
+        assertEquals(CHANGED_SPEC, newCache(false).fetch("product-catalog", "product-catalog"));
+        assertEquals(List.of("", "\"1\"", "\"2\""), conditions);
+    }
+
+    @Test
+    void readsOfflineWithoutRequests() throws IOException {
+        assertThrows(
+                IOException.class, () -> newCache(true).fetch("product-catalog", "product-catalog"));
+
+        newCache(false).fetch("product-catalog", "product-catalog");
+        assertEquals(SPEC, newCache(true).fetch("product-catalog", "product-catalog"));
+        assertEquals(1, conditions.size());
+    }
+
+    @Test
+    void decompressesGzippedSpecsBeforeCachingThem() throws IOException {
+        gzip = true;
+
+        assertEquals(SPEC, newCache(false).fetch("product-catalog", "product-catalog"));
+        assertEquals(
+                SPEC,
+                Files.readString(
+                        cacheDirectory.resolve("product-catalog.product-catalog.json"),
+                        StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void revalidatesWhenA304CarriesTheContentEncoding() throws IOException {
+        gzip = true;
+        newCache(false).fetch("product-catalog", "product-catalog");
+
+        SwaggerSpecCache cache = newCache(false);
+        assertEquals(SPEC, cache.fetch("product-catalog", "product-catalog"));
+        assertTrue(cache.summary().startsWith("0 spec(s) downloaded, 1 revalidated"));
+    }
+
+    private SwaggerSpecCache newCache(boolean offline) {
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/%s/%s";
+        return new SwaggerSpecCache(
+                cacheDirectory, url, offline, new SpecClient(Duration.ofSeconds(5), 0));
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        String condition = exchange.getRequestHeaders().getFirst("If-None-Match");
+        conditions.add(condition == null ? "" : condition);
+        exchange.getResponseHeaders().set("ETag", etag);
+        if (gzip) {
+            // sent with the 304 as well, like servers compressing by resource rather than by body do
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        if (etag.equals(condition)) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        if (gzip) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+                out.write(bytes);
+            }
+            bytes = compressed.toByteArray();
+        }
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}